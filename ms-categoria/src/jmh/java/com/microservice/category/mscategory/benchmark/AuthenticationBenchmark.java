@@ -0,0 +1,70 @@
+package com.microservice.category.mscategory.benchmark;
+
+import com.microservice.category.mscategory.model.Categoria;
+import com.microservice.category.mscategory.service.CategoriaServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Costo de Basic Authentication por solicitud: la diferencia entre {@code basic} y {@code preauthenticated}
+ * (la misma solicitud con el usuario ya autenticado). Con {@code credentialCacheTtl=0s} cada solicitud verifica
+ * la contraseña con BCrypt (Spring Security la recodifica despues del primer login); con la cache solo la
+ * primera de cada TTL.
+ *
+ * Resultados de referencia (1 CPU, us/op):
+ * <pre>
+ * credentialCacheTtl | basic | preauthenticated
+ *         0s         | 87861 |       1151
+ *        30s         |  1053 |       1203
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthenticationBenchmark {
+
+    @Param({"0s", "30s"})
+    private String credentialCacheTtl;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private Long id;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start("--security.credential-cache.ttl=" + credentialCacheTtl);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                .apply(springSecurity())
+                .build();
+        id = context.getBean(CategoriaServiceImpl.class).save(new Categoria("authentication")).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult basic() throws Exception {
+        return mockMvc.perform(get("/api/v1/categoria/{id}", id).with(httpBasic("admin2", "321"))).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult preauthenticated() throws Exception {
+        return mockMvc.perform(get("/api/v1/categoria/{id}", id).with(user("admin2"))).andReturn();
+    }
+}
@@ -0,0 +1,31 @@
+package com.microservice.category.mscategory.benchmark;
+
+import com.microservice.category.mscategory.MsCategoriaApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Levanta la aplicacion con el perfil test (H2 en memoria) para los benchmarks.
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String... args) {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.generate_statistics=false"));
+        arguments.addAll(Arrays.asList(args));
+
+        return new SpringApplicationBuilder(MsCategoriaApplication.class)
+                .profiles("test")
+                .run(arguments.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,72 @@
+package com.microservice.category.mscategory.benchmark;
+
+import com.microservice.category.mscategory.model.Categoria;
+import com.microservice.category.mscategory.service.CategoriaServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Mide el recorrido completo de una solicitud (filtros de seguridad, controller, servicio y serializacion)
+ * a traves de MockMvc. Los benchmarks "authenticated" omiten la verificacion de la contraseña para
+ * separar su costo del resto del recorrido.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ControllerBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private Long id;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start();
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                .apply(springSecurity())
+                .build();
+
+        CategoriaServiceImpl service = context.getBean(CategoriaServiceImpl.class);
+        for (int i = 0; i < 100; i++)
+            id = service.save(new Categoria("controller-" + i)).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult getById() throws Exception {
+        return mockMvc.perform(get("/api/v1/categoria/{id}", id).with(httpBasic("admin2", "321"))).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getByIdAuthenticated() throws Exception {
+        return mockMvc.perform(get("/api/v1/categoria/{id}", id).with(user("admin2"))).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getPageAuthenticated() throws Exception {
+        return mockMvc.perform(get("/api/v1/categorias").param("limit", "100").with(user("admin2"))).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getPageFieldsAuthenticated() throws Exception {
+        return mockMvc.perform(get("/api/v1/categorias").param("limit", "100").param("fields", "categoria").with(user("admin2"))).andReturn();
+    }
+}
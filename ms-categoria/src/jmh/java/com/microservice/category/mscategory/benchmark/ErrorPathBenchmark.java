@@ -0,0 +1,125 @@
+package com.microservice.category.mscategory.benchmark;
+
+import com.microservice.category.mscategory.exception.ConflictException;
+import com.microservice.category.mscategory.exception.ErrorDetail;
+import com.microservice.category.mscategory.model.Categoria;
+import com.microservice.category.mscategory.service.CategoriaServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Mide las respuestas de error (400, 404 y 409) a traves de MockMvc. Se ejecuta con {@code -prof gc} para
+ * obtener los bytes asignados por solicitud ({@code gc.alloc.rate.norm}).
+ * Los benchmarks {@code errorDetail*} aislan el armado del error a la profundidad de stack de una solicitud
+ * ({@code stackDepth}): {@code errorDetailStackful} repite lo que hacian el servicio y el controller antes de
+ * {@link com.microservice.category.mscategory.exception.RestExceptionHandler}.
+ *
+ * Resultados de referencia (1 CPU, B/op y us/op):
+ * <pre>
+ *                              | antes            | despues
+ * badRequest (MockMvc)         |  95650           |  95441
+ * notFound (MockMvc)           | 133036           | 135793
+ * conflict (MockMvc)           | 226893           | 225145
+ * errorDetail, stackDepth=20   |   3012 /  3.4 us |     88 / 0.06 us
+ * errorDetail, stackDepth=150  |   8525 / 11.5 us |     88 / 0.72 us
+ * </pre>
+ * Por MockMvc la diferencia queda dentro del error de la medicion: la solicitud, la seguridad y, en el 409, la
+ * excepcion de JDBC y su traduccion asignan mucho mas que el error en si. Aislado, el error deja de depender de
+ * la profundidad del stack.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorPathBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private Long missingId;
+
+    @State(Scope.Benchmark)
+    public static class Stack {
+        @Param({"20", "150"})
+        private int stackDepth;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start();
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                .apply(springSecurity())
+                .build();
+        missingId = context.getBean(CategoriaServiceImpl.class).save(new Categoria("duplicada")).getId() + 1000;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult badRequest() throws Exception {
+        return mockMvc.perform(get("/api/v1/categoria/{id}", 0).with(user("admin2"))).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult notFound() throws Exception {
+        return mockMvc.perform(delete("/api/v1/categoria/{id}", missingId).with(user("admin2"))).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult conflict() throws Exception {
+        return mockMvc.perform(post("/api/v1/categorias").with(user("admin2"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"categoria\":\"duplicada\"}")).andReturn();
+    }
+
+    @Benchmark
+    public ErrorDetail errorDetailStackful(Stack stack) {
+        return atDepth(stack.stackDepth, () -> {
+            try {
+                try {
+                    throw new DataIntegrityViolationException("La categoria ya existe");
+                } catch (DataIntegrityViolationException e) {
+                    throw new Exception(e.getMessage());
+                }
+            } catch (Exception ex) {
+                return new ErrorDetail(HttpStatus.CONFLICT.value(), ex.getMessage(), "Conflict", LocalDateTime.now());
+            }
+        });
+    }
+
+    @Benchmark
+    public ErrorDetail errorDetailStackless(Stack stack) {
+        return atDepth(stack.stackDepth, () -> {
+            try {
+                throw new ConflictException("La categoria ya existe");
+            } catch (ConflictException ex) {
+                return ErrorDetail.of(ex.getStatus(), ex.getMessage());
+            }
+        });
+    }
+
+    private static ErrorDetail atDepth(int depth, Supplier<ErrorDetail> error) {
+        return depth == 0 ? error.get() : atDepth(depth - 1, error);
+    }
+}
@@ -0,0 +1,44 @@
+package com.microservice.category.mscategory.benchmark;
+
+import com.microservice.category.mscategory.model.Categoria;
+import com.microservice.category.mscategory.service.CategoriaChangedEvent;
+import com.microservice.category.mscategory.service.CategoriaSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la busqueda por prefijo sobre el indice en memoria, sin base de datos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchIndexBenchmark {
+
+    @Param({"10000", "100000"})
+    private int size;
+
+    private CategoriaSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        List<Categoria> categorias = new ArrayList<>(size);
+        for (long i = 1; i <= size; i++) {
+            Categoria categoria = new Categoria("Categoría " + i);
+            categoria.setId(i);
+            categorias.add(categoria);
+        }
+        index = new CategoriaSearchIndex(null);
+        index.onChange(CategoriaChangedEvent.saved(categorias));
+    }
+
+    @Benchmark
+    public List<Categoria> search() {
+        return index.search("categoria 12", 10);
+    }
+}
@@ -0,0 +1,78 @@
+package com.microservice.category.mscategory.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microservice.category.mscategory.exception.ErrorDetail;
+import com.microservice.category.mscategory.model.Categoria;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la serializacion JSON de las respuestas, con un ObjectMapper configurado como el de Spring Boot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private ErrorDetail errorDetail;
+
+    @State(Scope.Benchmark)
+    public static class Categorias {
+
+        @Param({"10", "1000"})
+        private int size;
+
+        private List<Categoria> list;
+
+        // Las mismas categorias como las retorna GET /categorias?fields=id,categoria
+        private List<Map<String, Object>> rows;
+
+        @Setup
+        public void setUp() {
+            list = new ArrayList<>(size);
+            rows = new ArrayList<>(size);
+            for (long i = 1; i <= size; i++) {
+                Categoria categoria = new Categoria("categoria-" + i);
+                categoria.setId(i);
+                list.add(categoria);
+
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("id", i);
+                row.put("categoria", categoria.getCategoria());
+                rows.add(row);
+            }
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        errorDetail = new ErrorDetail(409, "La categoria ya existe", "Conflict", LocalDateTime.now());
+    }
+
+    @Benchmark
+    public byte[] serializeCategorias(Categorias categorias) throws Exception {
+        return objectMapper.writeValueAsBytes(categorias.list);
+    }
+
+    @Benchmark
+    public byte[] serializeCategoriaRows(Categorias categorias) throws Exception {
+        return objectMapper.writeValueAsBytes(categorias.rows);
+    }
+
+    @Benchmark
+    public byte[] serializeErrorDetail() throws Exception {
+        return objectMapper.writeValueAsBytes(errorDetail);
+    }
+}
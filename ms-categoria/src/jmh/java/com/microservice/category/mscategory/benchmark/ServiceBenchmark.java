@@ -0,0 +1,56 @@
+package com.microservice.category.mscategory.benchmark;
+
+import com.microservice.category.mscategory.model.Categoria;
+import com.microservice.category.mscategory.service.CategoriaServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mide findById, save y update del servicio contra H2, con la cache deshabilitada
+ * para que cada invocacion llegue a la base de datos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private CategoriaServiceImpl service;
+    private Long id;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start("--spring.cache.type=none");
+        service = context.getBean(CategoriaServiceImpl.class);
+        id = service.save(new Categoria("benchmark")).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Categoria> findById() throws Exception {
+        return service.findById(id);
+    }
+
+    @Benchmark
+    public Categoria save() throws Exception {
+        return service.save(new Categoria("save-" + sequence.incrementAndGet()));
+    }
+
+    @Benchmark
+    public Optional<Categoria> update() throws Exception {
+        return service.update(id, new Categoria("update-" + sequence.incrementAndGet()));
+    }
+}
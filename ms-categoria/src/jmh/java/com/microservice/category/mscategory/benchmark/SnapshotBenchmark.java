@@ -0,0 +1,94 @@
+package com.microservice.category.mscategory.benchmark;
+
+import com.microservice.category.mscategory.dto.SnapshotImportResult;
+import com.microservice.category.mscategory.service.CategoriaSearchIndex;
+import com.microservice.category.mscategory.service.CategoriaSnapshotService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Mide la exportacion y la importacion de un snapshot de {@code rows} categorias contra H2. Cada operacion
+ * procesa la tabla completa, por lo que el rendimiento en filas por segundo es {@code rows / score}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class SnapshotBenchmark {
+
+    @Param({"1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private CategoriaSnapshotService snapshotService;
+    private byte[] snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkApplication.start("--spring.cache.type=none");
+        snapshotService = context.getBean(CategoriaSnapshotService.class);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(bytes)) {
+            for (int i = 1; i <= rows; i++)
+                gzip.write(("{\"id\":" + i + ",\"categoria\":\"Categoria " + i + "\"}\n").getBytes(StandardCharsets.UTF_8));
+        }
+        snapshot = bytes.toByteArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Tabla vacia antes de cada importacion.
+     */
+    @State(Scope.Benchmark)
+    public static class EmptyTable {
+
+        @Setup(Level.Iteration)
+        public void truncate(SnapshotBenchmark benchmark) throws Exception {
+            JdbcTemplate jdbcTemplate = benchmark.context.getBean(JdbcTemplate.class);
+            // H2 no permite truncar una tabla referenciada por una clave foranea, aunque sea la propia (fk_categoria_parent)
+            jdbcTemplate.execute("set referential_integrity false");
+            jdbcTemplate.execute("truncate table categoria");
+            jdbcTemplate.execute("set referential_integrity true");
+            jdbcTemplate.execute("truncate table outbox_event");
+            benchmark.context.getBean(CategoriaSearchIndex.class).rebuild();
+        }
+    }
+
+    /**
+     * Tabla con las {@code rows} categorias del snapshot, cargadas una sola vez.
+     */
+    @State(Scope.Benchmark)
+    public static class FullTable {
+
+        @Setup(Level.Trial)
+        public void load(SnapshotBenchmark benchmark) throws Exception {
+            benchmark.snapshotService.importSnapshot(new ByteArrayInputStream(benchmark.snapshot));
+        }
+    }
+
+    @Benchmark
+    public SnapshotImportResult importSnapshot(EmptyTable table) throws Exception {
+        return snapshotService.importSnapshot(new ByteArrayInputStream(snapshot));
+    }
+
+    @Benchmark
+    public long export(FullTable table) throws Exception {
+        return snapshotService.export(OutputStream.nullOutputStream());
+    }
+}
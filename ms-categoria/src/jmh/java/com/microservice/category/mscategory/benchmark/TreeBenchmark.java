@@ -0,0 +1,99 @@
+package com.microservice.category.mscategory.benchmark;
+
+import com.microservice.category.mscategory.model.Categoria;
+import com.microservice.category.mscategory.service.CategoriaServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide las consultas sobre el arbol de categorias contra H2, sobre un arbol de {@code nodes} categorias con
+ * {@code fanout} hijas cada una (100.000 categorias en 6 niveles). {@code descendantsRecursive} es la
+ * alternativa sin path: una consulta por categoria, con JDBC directo para no sumarle el costo de Hibernate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class TreeBenchmark {
+
+    @Param({"100000"})
+    private int nodes;
+
+    @Param({"10"})
+    private int fanout;
+
+    private ConfigurableApplicationContext context;
+    private CategoriaServiceImpl service;
+    private JdbcTemplate jdbcTemplate;
+    private Categoria root;
+    private Categoria subtree;
+    private Categoria leaf;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start("--spring.cache.type=none");
+        service = context.getBean(CategoriaServiceImpl.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        // Ids consecutivos en orden de nivel: la categoria i (i > 1) es hija de (i - 2) / fanout + 1
+        String[] paths = new String[nodes + 1];
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(nodes);
+        for (int id = 1; id <= nodes; id++) {
+            Long parentId = id == 1 ? null : (long) (id - 2) / fanout + 1;
+            paths[id] = parentId == null ? Categoria.ROOT_PATH : paths[parentId.intValue()] + parentId + "/";
+            rows.add(new Object[]{(long) id, "arbol-" + id, parentId, paths[id], Categoria.depthOf(paths[id]), now});
+        }
+        jdbcTemplate.batchUpdate("insert into categoria (id, categoria, parent_id, path, depth, version, last_modified) "
+                + "values (?, ?, ?, ?, ?, 0, ?)", rows);
+
+        root = service.findById(1L).orElseThrow();
+        // Una categoria del segundo nivel: fanout^k descendientes por cada nivel k debajo de ella
+        subtree = service.findById((long) fanout + 2).orElseThrow();
+        leaf = service.findById((long) nodes).orElseThrow();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Categoria> descendants() throws Exception {
+        return service.findDescendants(subtree, null);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> descendantsRecursive() {
+        List<Map<String, Object>> descendants = new ArrayList<>();
+        collectChildren(subtree.getId(), descendants);
+        return descendants;
+    }
+
+    @Benchmark
+    public List<Categoria> children() throws Exception {
+        return service.findDescendants(root, 1);
+    }
+
+    @Benchmark
+    public List<Categoria> ancestors() throws Exception {
+        return service.findAncestors(leaf);
+    }
+
+    private void collectChildren(Object parentId, List<Map<String, Object>> descendants) {
+        for (Map<String, Object> child : jdbcTemplate.queryForList("select * from categoria where parent_id = ?", parentId)) {
+            descendants.add(child);
+            collectChildren(child.get("id"), descendants);
+        }
+    }
+}
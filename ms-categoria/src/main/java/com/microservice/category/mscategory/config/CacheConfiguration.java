@@ -0,0 +1,27 @@
+package com.microservice.category.mscategory.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+/**
+ * Cache en memoria de las categorias. El tamaño maximo y el TTL se configuran con
+ * {@code spring.cache.caffeine.spec}; los contadores de aciertos, fallos y desalojos
+ * se publican en {@code /actuator/metrics/cache.gets} y {@code /actuator/metrics/cache.evictions}.
+ *
+ * El interceptor de la cache envuelve al de las transacciones: un metodo con {@code @CachePut} o
+ * {@code @CacheEvict} y {@code @Transactional} modifica la cache despues del commit, nunca antes, por lo que
+ * otra solicitud no puede volver a cachear el dato anterior entre la modificacion y el commit, y un rollback
+ * no deja en la cache un dato que no se guardo.
+ */
+@Configuration
+@EnableCaching(proxyTargetClass = true, order = CacheConfiguration.CACHE_ADVICE_ORDER)
+@EnableTransactionManagement(proxyTargetClass = true, order = CacheConfiguration.TRANSACTION_ADVICE_ORDER)
+public class CacheConfiguration {
+    public static final String CATEGORIAS_POR_ID = "categoriasPorId";
+    public static final String CATEGORIAS_POR_NOMBRE = "categoriasPorNombre";
+
+    public static final int CACHE_ADVICE_ORDER = Ordered.LOWEST_PRECEDENCE - 1;
+    public static final int TRANSACTION_ADVICE_ORDER = Ordered.LOWEST_PRECEDENCE;
+}
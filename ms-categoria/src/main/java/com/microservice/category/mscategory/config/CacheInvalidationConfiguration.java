@@ -0,0 +1,52 @@
+package com.microservice.category.mscategory.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microservice.category.mscategory.service.CategoriaChangedEvent;
+import com.microservice.category.mscategory.service.CategoriaInvalidationBus;
+import com.microservice.category.mscategory.service.InProcessInvalidationBus;
+import com.microservice.category.mscategory.service.OutboxPollingInvalidationBus;
+import com.microservice.category.mscategory.service.OutboxService;
+import com.microservice.category.mscategory.service.TableVersionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.function.Consumer;
+
+/**
+ * Elige como se enteran las instancias de las escrituras de las demas, para invalidar sus caches en memoria
+ * ({@code cache.invalidation.transport}): leyendo el outbox de la base de datos compartida (por defecto),
+ * dentro de la misma JVM (tests) o ninguno, con una unica instancia. Los cambios recibidos tambien completan
+ * las esperas de {@code /categorias/changes} (ver {@link OutboxService#nextChange()}).
+ */
+@Configuration
+@Profile("!reactive")
+@EnableConfigurationProperties(CacheInvalidationProperties.class)
+public class CacheInvalidationConfiguration {
+
+    @Bean
+    public CategoriaInvalidationBus categoriaInvalidationBus(CacheInvalidationProperties properties, OutboxService outboxService,
+                                                             TableVersionService tableVersionService, ObjectMapper objectMapper,
+                                                             MeterRegistry meterRegistry) {
+        CategoriaInvalidationBus bus = switch (properties.getTransport()) {
+            case OUTBOX -> new OutboxPollingInvalidationBus(outboxService, tableVersionService, objectMapper, properties.getPollInterval(),
+                    meterRegistry.counter(MetricsConfiguration.CACHE_INVALIDATION_POLL_ERRORS),
+                    meterRegistry.counter(MetricsConfiguration.CACHE_INVALIDATION_SKIPPED));
+            case IN_PROCESS -> new InProcessInvalidationBus(properties.getGroup());
+            case NONE -> new CategoriaInvalidationBus() {
+                @Override
+                public void publish(CategoriaChangedEvent event) {
+                }
+
+                @Override
+                public void subscribe(Consumer<CategoriaChangedEvent> listener) {
+                }
+            };
+        };
+        // Despierta a los consumidores de /categorias/changes de esta instancia con los commits de las demas
+        bus.subscribe(event -> outboxService.wakeUp());
+        return bus;
+    }
+}
@@ -0,0 +1,31 @@
+package com.microservice.category.mscategory.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Transporte de los cambios entre instancias (ver {@link CacheInvalidationConfiguration}),
+ * configurado en {@code cache.invalidation.*}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties("cache.invalidation")
+public class CacheInvalidationProperties {
+    private Transport transport = Transport.OUTBOX;
+    // Cada cuanto se lee el outbox con transport=outbox: el tiempo maximo que una instancia sirve un dato ya modificado en otra
+    private Duration pollInterval = Duration.ofSeconds(1);
+    // Instancias que se avisan entre si con transport=in-process
+    private String group = "ms-categoria";
+
+    public enum Transport {
+        // Lee los cambios del outbox de la base de datos compartida
+        OUTBOX,
+        // Entrega los cambios a las demas instancias de la misma JVM (tests)
+        IN_PROCESS,
+        // Una unica instancia: no hay cambios ajenos
+        NONE
+    }
+}
@@ -0,0 +1,68 @@
+package com.microservice.category.mscategory.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+
+/**
+ * Recuerda durante {@code ttl} las credenciales de Basic Authentication que ya se verificaron, para no pasar
+ * por el password encoder (BCrypt) en cada solicitud. La clave es el SHA-256 de {@code usuario:contraseña},
+ * el mismo contenido del header Authorization, por lo que la contraseña no queda guardada en memoria.
+ * Solo se guardan los aciertos: una contraseña incorrecta siempre llega al proveedor delegado.
+ * Un cambio de contraseña o la baja de un usuario tardan hasta {@code ttl} en aplicarse.
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private final AuthenticationProvider delegate;
+    private final Cache<String, Authentication> verified;
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, Duration ttl) {
+        this.delegate = delegate;
+        this.verified = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(10_000)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String key = key(authentication);
+        Authentication cached = verified.getIfPresent(key);
+        if (cached != null)
+            return cached;
+
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.isAuthenticated())
+            verified.put(key, result);
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+
+    Cache<String, Authentication> getCache() {
+        return verified;
+    }
+
+    private static String key(Authentication authentication) {
+        String credentials = authentication.getName() + ":" + authentication.getCredentials();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(credentials.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
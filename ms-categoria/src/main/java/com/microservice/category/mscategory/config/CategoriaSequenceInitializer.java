@@ -0,0 +1,47 @@
+package com.microservice.category.mscategory.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Migracion de los ids de categoria de IDENTITY a la secuencia {@code categoria_seq}: en una base de datos
+ * que ya tenia categorias, Hibernate crea la secuencia desde 1 y las altas repetirian ids existentes.
+ * Al iniciar, antes de atender solicitudes, la secuencia se adelanta por encima de {@code MAX(id)}.
+ *
+ * Hibernate interpreta cada valor {@code h} de la secuencia como el bloque de ids {@code [h-49, h]}, por lo
+ * que alcanza con {@code next_val >= MAX(id) + 50}. En MySQL la secuencia es una tabla con una unica fila;
+ * el UPDATE solo la adelanta, por lo que varias instancias pueden ejecutarlo al mismo tiempo. En H2 (tests)
+ * la base de datos se crea vacia junto con la secuencia.
+ */
+@Component
+@Profile("!reactive")
+public class CategoriaSequenceInitializer {
+    private static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Hibernate crea o actualiza el esquema, incluida la secuencia, al crear el EntityManagerFactory
+    public CategoriaSequenceInitializer(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (database == null || !database.toLowerCase(Locale.ROOT).contains("mysql"))
+            return;
+
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM categoria", Long.class);
+        if (maxId == null)
+            return;
+
+        long nextVal = maxId + ALLOCATION_SIZE;
+        jdbcTemplate.update("UPDATE categoria_seq SET next_val = ? WHERE next_val < ?", nextVal, nextVal);
+    }
+}
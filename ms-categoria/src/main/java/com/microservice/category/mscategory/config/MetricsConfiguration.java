@@ -0,0 +1,31 @@
+package com.microservice.category.mscategory.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Habilita {@link io.micrometer.core.annotation.Timed} en los servicios. Los timers de los controllers
+ * (http.server.requests), de los repositorios (spring.data.repository.invocations) y de las sentencias
+ * SQL (jdbc.*) los registra Spring Boot; los histogramas se habilitan en application.properties.
+ */
+@Configuration
+public class MetricsConfiguration {
+    public static final String SERVICE_INVOCATIONS = "service.invocations";
+    public static final String SERVICE_CONFLICTS = "service.conflicts";
+    public static final String SERVICE_EXCEPTIONS_REWRAPPED = "service.exceptions.rewrapped";
+    public static final String SERVICE_COALESCED = "service.coalesced";
+    public static final String SNAPSHOT_IMPORT_ROWS = "snapshot.import.rows";
+    public static final String RATE_LIMIT_REJECTED = "ratelimit.rejected";
+    public static final String RATE_LIMIT_IN_FLIGHT = "ratelimit.inflight";
+    public static final String RATE_LIMIT_LIMIT = "ratelimit.limit";
+    public static final String CACHE_INVALIDATIONS = "cache.invalidations";
+    public static final String CACHE_INVALIDATION_POLL_ERRORS = "cache.invalidation.poll.errors";
+    public static final String CACHE_INVALIDATION_SKIPPED = "cache.invalidation.skipped";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
@@ -0,0 +1,57 @@
+package com.microservice.category.mscategory.config;
+
+import com.microservice.category.mscategory.controller.BaseControllerImpl;
+import com.microservice.category.mscategory.controller.CategoriaController;
+import com.microservice.category.mscategory.dto.BulkResult;
+import com.microservice.category.mscategory.dto.CursorPage;
+import com.microservice.category.mscategory.dto.SnapshotImportResult;
+import com.microservice.category.mscategory.exception.ErrorDetail;
+import com.microservice.category.mscategory.model.Base;
+import com.microservice.category.mscategory.model.Categoria;
+import com.microservice.category.mscategory.model.OutboxEvent;
+import com.microservice.category.mscategory.model.TableVersion;
+import com.microservice.category.mscategory.repository.BaseRepository;
+import com.microservice.category.mscategory.repository.CategoriaRepository;
+import com.microservice.category.mscategory.service.BaseServiceImpl;
+import com.microservice.category.mscategory.service.CategoriaServiceImpl;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import java.util.List;
+
+/**
+ * Hints para la imagen nativa ({@code mvn -Pnative native:compile}) y el jar procesado con AOT
+ * ({@code mvn -Pnative package}, se ejecuta con {@code -Dspring.aot.enabled=true}).
+ * El procesamiento AOT de Spring registra los beans, los proxies y los repositorios, pero no lo que se
+ * resuelve a partir de los genericos de la jerarquia Base*: el tipo concreto de los {@code @RequestBody E}
+ * y de las respuestas, y los metodos heredados de BaseServiceImpl y BaseRepository.
+ */
+@Configuration
+@ImportRuntimeHints(NativeConfiguration.Hints.class)
+@RegisterReflectionForBinding({Categoria.class, CursorPage.class, BulkResult.class, ErrorDetail.class, SnapshotImportResult.class, OutboxEvent.class})
+public class NativeConfiguration {
+
+    static class Hints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Los getters, setters y constructores generados por Lombok; Hibernate accede a los campos
+            for (Class<?> entity : List.of(Base.class, Categoria.class, OutboxEvent.class, TableVersion.class))
+                hints.reflection().registerType(entity, MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                        MemberCategory.INVOKE_PUBLIC_METHODS);
+
+            // Los parametros genericos se resuelven por reflexion sobre la superclase y sus metodos
+            for (Class<?> type : List.of(BaseControllerImpl.class, CategoriaController.class, BaseServiceImpl.class, CategoriaServiceImpl.class))
+                hints.reflection().registerType(type, MemberCategory.INTROSPECT_DECLARED_METHODS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            for (Class<?> type : List.of(BaseRepository.class, CategoriaRepository.class))
+                hints.reflection().registerType(type, MemberCategory.INTROSPECT_PUBLIC_METHODS, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+            // Esquemas de la variante reactiva (spring.sql.init)
+            hints.resources().registerPattern("db/reactive/*.sql");
+        }
+    }
+}
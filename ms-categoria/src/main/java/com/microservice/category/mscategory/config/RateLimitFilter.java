@@ -0,0 +1,242 @@
+package com.microservice.category.mscategory.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.microservice.category.mscategory.exception.ErrorDetail;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Aplica las reglas de {@link RateLimitProperties} antes de que la solicitud llegue al controller:
+ * <ul>
+ *     <li>Un token bucket por cliente (el usuario autenticado) y regla; sin tokens se responde 429 con Retry-After.</li>
+ *     <li>Un limite de solicitudes en curso por regla, compartido por todos los clientes; al alcanzarlo se
+ *     responde 503 en lugar de dejar la solicitud esperando un hilo de Tomcat o una conexion del pool. Una
+ *     solicitud asincronica (el long-poll de /categorias/changes, los listados con stream=true) ocupa su lugar
+ *     hasta que termina la respuesta, no solo mientras el filtro la atiende.</li>
+ * </ul>
+ * Los rechazos se publican en {@value MetricsConfiguration#RATE_LIMIT_REJECTED} (por regla y motivo), las
+ * solicitudes en curso en {@value MetricsConfiguration#RATE_LIMIT_IN_FLIGHT} y los limites configurados en
+ * {@value MetricsConfiguration#RATE_LIMIT_LIMIT}. Debe ejecutarse despues de Spring Security.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final List<Limiter> limiters = new ArrayList<>();
+    private final Cache<String, TokenBucket> buckets;
+    private final ObjectMapper objectMapper;
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(properties.getIdleClientExpiration())
+                .maximumSize(100_000)
+                .build();
+        properties.getRules().forEach((name, rule) -> limiters.add(new Limiter(name, rule, meterRegistry)));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Limiter limiter = findLimiter(request);
+        if (limiter == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (limiter.rule.getRequestsPerSecond() > 0) {
+            TokenBucket bucket = buckets.get(limiter.name + ":" + currentClient(request),
+                    key -> new TokenBucket(limiter.rule.getBurst(), limiter.rule.getRequestsPerSecond()));
+            long waitNanos = bucket.tryConsume();
+            if (waitNanos > 0) {
+                limiter.rateLimited.increment();
+                long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+                reject(response, HttpStatus.TOO_MANY_REQUESTS, retryAfter,
+                        "Se supero el limite de solicitudes de " + limiter.name + ", reintentar en " + retryAfter + " s");
+                return;
+            }
+        }
+
+        if (limiter.inFlight == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!limiter.inFlight.tryAcquire()) {
+            limiter.shed.increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1,
+                    "Demasiadas solicitudes en curso para " + limiter.name + ", reintentar en unos instantes");
+            return;
+        }
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            async = request.isAsyncStarted();
+        } finally {
+            // El contenedor no despacha la continuacion asincronica hasta que este hilo termina la solicitud
+            if (async)
+                request.getAsyncContext().addListener(new ReleaseOnCompletion(limiter.inFlight));
+            else
+                limiter.inFlight.release();
+        }
+    }
+
+    private Limiter findLimiter(HttpServletRequest request) {
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        for (Limiter limiter : limiters)
+            if (limiter.matches(request.getMethod(), path))
+                return limiter;
+        return null;
+    }
+
+    private static String currentClient(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds, String message) throws IOException {
+        ErrorDetail errorDetail = new ErrorDetail(status.value(), message, status.getReasonPhrase(), LocalDateTime.now());
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), errorDetail);
+    }
+
+    private static final class Limiter {
+        private final String name;
+        private final RateLimitProperties.Rule rule;
+        private final String method;
+        private final PathPattern path;
+        private final Semaphore inFlight;
+        private final Counter rateLimited;
+        private final Counter shed;
+
+        Limiter(String name, RateLimitProperties.Rule rule, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.rule = rule;
+            this.method = StringUtils.hasText(rule.getMethod()) ? rule.getMethod().toUpperCase(Locale.ROOT) : null;
+            this.path = PathPatternParser.defaultInstance.parse(rule.getPath());
+            this.inFlight = rule.getMaxConcurrent() > 0 ? new Semaphore(rule.getMaxConcurrent()) : null;
+            this.rateLimited = Counter.builder(MetricsConfiguration.RATE_LIMIT_REJECTED)
+                    .tag("rule", name).tag("reason", "rate_limit").register(meterRegistry);
+            this.shed = Counter.builder(MetricsConfiguration.RATE_LIMIT_REJECTED)
+                    .tag("rule", name).tag("reason", "concurrency").register(meterRegistry);
+
+            if (inFlight != null)
+                Gauge.builder(MetricsConfiguration.RATE_LIMIT_IN_FLIGHT, inFlight, semaphore -> rule.getMaxConcurrent() - semaphore.availablePermits())
+                        .tag("rule", name).register(meterRegistry);
+            Gauge.builder(MetricsConfiguration.RATE_LIMIT_LIMIT, rule, RateLimitProperties.Rule::getRequestsPerSecond)
+                    .tag("rule", name).tag("limit", "requests_per_second").register(meterRegistry);
+            Gauge.builder(MetricsConfiguration.RATE_LIMIT_LIMIT, rule, RateLimitProperties.Rule::getBurst)
+                    .tag("rule", name).tag("limit", "burst").register(meterRegistry);
+            Gauge.builder(MetricsConfiguration.RATE_LIMIT_LIMIT, rule, RateLimitProperties.Rule::getMaxConcurrent)
+                    .tag("rule", name).tag("limit", "max_concurrent").register(meterRegistry);
+        }
+
+        boolean matches(String requestMethod, PathContainer requestPath) {
+            return (method == null || method.equals(requestMethod)) && path.matches(requestPath);
+        }
+    }
+
+    /**
+     * Libera el lugar de una solicitud asincronica una unica vez, cuando termina por cualquier motivo.
+     */
+    private static final class ReleaseOnCompletion implements AsyncListener {
+        private final Semaphore inFlight;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        ReleaseOnCompletion(Semaphore inFlight) {
+            this.inFlight = inFlight;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Un nuevo ciclo asincronico de la misma solicitud: se vuelve a registrar para seguir ocupando el lugar
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true))
+                inFlight.release();
+        }
+    }
+
+    /**
+     * Token bucket de un cliente. Usa un ReentrantLock y no synchronized para no fijar el hilo de plataforma
+     * cuando las solicitudes corren en hilos virtuales.
+     */
+    static final class TokenBucket {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(int burst, double requestsPerSecond) {
+            this.capacity = Math.max(1, burst);
+            this.tokensPerNano = requestsPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        /**
+         * @return 0 si se consumio un token, o los nanosegundos que faltan para que haya uno.
+         */
+        long tryConsume() {
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+                lastRefill = now;
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return 0;
+                }
+                return (long) Math.ceil((1 - tokens) / tokensPerNano);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
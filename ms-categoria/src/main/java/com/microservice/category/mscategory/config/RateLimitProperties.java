@@ -0,0 +1,38 @@
+package com.microservice.category.mscategory.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Limites por endpoint de {@link RateLimitFilter}, configurados en {@code rate-limit.rules.<nombre>.*}.
+ * Cada solicitud usa la primera regla cuyo metodo y path coinciden; un limite en 0 no se aplica.
+ */
+@Getter
+@Setter
+@ConfigurationProperties("rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+    // Tiempo sin solicitudes tras el cual se descarta el token bucket de un cliente
+    private Duration idleClientExpiration = Duration.ofMinutes(10);
+    private Map<String, Rule> rules = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Rule {
+        // Metodo HTTP; vacio para cualquiera
+        private String method;
+        // Patron de path, por ejemplo /api/v1/categoria/{id}
+        private String path;
+        // Solicitudes por segundo que recupera el token bucket de cada cliente
+        private double requestsPerSecond;
+        // Solicitudes que un cliente puede hacer de una vez con el bucket lleno
+        private int burst;
+        // Solicitudes en curso, de todos los clientes, a partir de las cuales se rechaza con 503
+        private int maxConcurrent;
+    }
+}
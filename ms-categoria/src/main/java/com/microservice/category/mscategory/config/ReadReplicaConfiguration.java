@@ -0,0 +1,93 @@
+package com.microservice.category.mscategory.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import net.ttddyy.observation.boot.autoconfigure.JdbcProperties;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Lecturas desde una replica de MySQL, habilitadas al configurar {@code spring.datasource.replica.url}
+ * (y opcionalmente {@code username} y {@code password}). El pool de la replica toma la configuracion de
+ * {@code spring.datasource.hikari.*}, que se puede redefinir con {@code spring.datasource.replica.hikari.*}.
+ * Sin replica, Spring Boot crea el DataSource de siempre y todo se ejecuta en el primario.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty("spring.datasource.replica.url")
+public class ReadReplicaConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(DataSourceProperties properties, Environment environment) {
+        Binder binder = Binder.get(environment);
+        DataSourceProperties replicaProperties = binder.bind("spring.datasource.replica", Bindable.ofInstance(copy(properties))).get();
+        HikariDataSource replica = replicaProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+        replica.setPoolName(replica.getPoolName() == null ? "replica" : replica.getPoolName() + "-replica");
+        binder.bind("spring.datasource.replica.hikari", Bindable.ofInstance(replica));
+        return replica;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary, @Qualifier("replicaDataSource") DataSource replica,
+                                 @Value("${spring.datasource.replica.read-your-writes-window:2s}") Duration readYourWritesWindow) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replica, readYourWritesWindow);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    /**
+     * Solo se instrumentan los dos pools (las metricas jdbc.* quedan separadas por primario y replica) y no el
+     * DataSource que rutea: datasource-micrometer lee la URL de cada conexion apenas se obtiene, lo que forzaria
+     * a elegir el destino antes de que la transaccion se marque como de solo lectura.
+     */
+    @Bean
+    public static BeanPostProcessor routingDataSourceObservationExclusion() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof JdbcProperties properties) {
+                    Set<String> excluded = new HashSet<>(properties.getExcludedDataSourceBeanNames());
+                    excluded.add("dataSource");
+                    properties.setExcludedDataSourceBeanNames(excluded);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * La replica usa el mismo driver y, salvo que se indiquen, las mismas credenciales que el primario.
+     */
+    private static DataSourceProperties copy(DataSourceProperties properties) {
+        DataSourceProperties copy = new DataSourceProperties();
+        copy.setDriverClassName(properties.getDriverClassName());
+        copy.setUsername(properties.getUsername());
+        copy.setPassword(properties.getPassword());
+        return copy;
+    }
+}
@@ -0,0 +1,115 @@
+package com.microservice.category.mscategory.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Envia las transacciones de solo lectura ({@code @Transactional(readOnly = true)}) a la replica y el resto
+ * (escrituras y consultas fuera de una transaccion) al primario.
+ * Para que un cliente lea lo que acaba de escribir aunque la replica todavia no lo haya recibido, sus lecturas
+ * vuelven al primario durante {@code readYourWritesWindow} despues de cada commit de escritura. El cliente es el
+ * usuario junto con el header {@value #CLIENT_HEADER} o, si no lo envia, la direccion remota: los clientes que
+ * comparten el usuario de Basic no se envian al primario entre si. Las lecturas fuera de una solicitud (hilos
+ * asincronicos) no conocen al cliente y usan una ventana por usuario, que abre cualquier escritura del usuario.
+ * Las lecturas que llenan las caches en memoria se ejecutan con {@link #onPrimary}: un dato leido de una replica
+ * atrasada, justo despues de desalojarlo, quedaria en la cache hasta su vencimiento.
+ * Debe usarse detras de un {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, para que
+ * la conexion se elija en la primera sentencia, cuando la transaccion ya se marco como de solo lectura.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String CLIENT_HEADER = "X-Client-Id";
+    private static final int MAX_CLIENT_LENGTH = 64;
+
+    enum Target {PRIMARY, REPLICA}
+
+    // Lecturas del hilo actual que deben ir al primario, ver onPrimary
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    // Clientes y usuarios con una escritura confirmada dentro de la ventana; las entradas vencen solas
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, Duration readYourWritesWindow) {
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(readYourWritesWindow)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    /**
+     * Ejecuta {@code query} leyendo del primario aunque abra una transaccion de solo lectura. Sin replica no
+     * tiene efecto.
+     */
+    public static <T> T onPrimary(Callable<T> query) throws Exception {
+        if (PRIMARY_ONLY.get() != null)
+            return query.call();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return query.call();
+        } finally {
+            PRIMARY_ONLY.remove();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive())
+            return Target.PRIMARY;
+
+        String user = currentUser();
+        String client = currentClient(user);
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recentWriters.put(user, Boolean.TRUE);
+                    if (client != null)
+                        recentWriters.put(client, Boolean.TRUE);
+                }
+            });
+            return Target.PRIMARY;
+        }
+        if (PRIMARY_ONLY.get() != null)
+            return Target.PRIMARY;
+        return recentWriters.getIfPresent(client != null ? client : user) != null ? Target.PRIMARY : Target.REPLICA;
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? "" : authentication.getName();
+    }
+
+    /**
+     * @return la clave del cliente de la solicitud actual, o null fuera de una solicitud.
+     */
+    private static String currentClient(String user) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes))
+            return null;
+
+        HttpServletRequest request = servletAttributes.getRequest();
+        String client = request.getHeader(CLIENT_HEADER);
+        if (client == null || client.isBlank())
+            client = request.getRemoteAddr();
+        else if (client.length() > MAX_CLIENT_LENGTH)
+            client = client.substring(0, MAX_CLIENT_LENGTH);
+        // El usuario por separado ya es una clave: el prefijo evita que un cliente coincida con un usuario
+        return user + "|" + client;
+    }
+}
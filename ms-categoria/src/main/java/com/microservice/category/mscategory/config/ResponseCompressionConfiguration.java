@@ -0,0 +1,104 @@
+package com.microservice.category.mscategory.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Tomcat comprime las respuestas de {@code server.compression.mime-types} que superan
+ * {@code server.compression.min-response-size}, pero solo conoce el tamaño si la respuesta termina antes de
+ * enviarse. Spring MVC hace flush al terminar de escribir el JSON, lo que la envia sin Content-Length y hace que
+ * se comprima aunque sea mas chica que el minimo. Para los clientes que aceptan gzip, este filtro ignora esos
+ * flush: Tomcat envia la respuesta al cerrarla (con su Content-Length) o cuando se llena su buffer, que ya es
+ * mayor que el minimo.
+ */
+@Configuration
+@Profile("!reactive")
+public class ResponseCompressionConfiguration {
+
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> deferredFlushFilter() {
+        return new FilterRegistrationBean<>(new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                    throws ServletException, IOException {
+                String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+                if (acceptEncoding == null || !acceptEncoding.contains("gzip")) {
+                    filterChain.doFilter(request, response);
+                    return;
+                }
+                filterChain.doFilter(request, new DeferredFlushResponse(response));
+            }
+        });
+    }
+
+    private static class DeferredFlushResponse extends HttpServletResponseWrapper {
+        private ServletOutputStream outputStream;
+
+        DeferredFlushResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null)
+                outputStream = new DeferredFlushOutputStream(super.getOutputStream());
+            return outputStream;
+        }
+
+        @Override
+        public void flushBuffer() {
+            // Tomcat envia el buffer al cerrar la respuesta
+        }
+    }
+
+    private static class DeferredFlushOutputStream extends ServletOutputStream {
+        private final ServletOutputStream delegate;
+
+        DeferredFlushOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+            // Tomcat envia el buffer al cerrar la respuesta
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
@@ -1,26 +1,61 @@
 package com.microservice.category.mscategory.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.SecurityFilterChain;
 
+import java.time.Duration;
+
 @Configuration
+@Profile("!reactive")
 @EnableWebSecurity
 public class SecurityConfiguration {
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
-        http.csrf().disable();
-        http.authorizeHttpRequests()
-                .anyRequest()//put, get, post, delete
-                .authenticated()
-                .and()
-                .httpBasic();
+    public SecurityFilterChain filterChain(HttpSecurity http, UserDetailsService userDetailsService, MeterRegistry meterRegistry,
+                                           @Value("${security.credential-cache.ttl:30s}") Duration credentialCacheTtl) throws Exception {
+        // Cada solicitud trae sus credenciales: no se crea ni se consulta la sesion HTTP
+        http.csrf(AbstractHttpConfigurer::disable)
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+        http.authenticationManager(new ProviderManager(authenticationProvider(userDetailsService, meterRegistry, credentialCacheTtl)));
+        http.authorizeHttpRequests(auth -> auth.anyRequest().authenticated())//put, get, post, delete
+                .httpBasic(Customizer.withDefaults());
 
         return http.build();
 
     }
 
-}
\ No newline at end of file
+    /**
+     * El mismo proveedor que arma Spring Boot para el usuario de spring.security.user.*, detras de una cache de
+     * credenciales verificadas. Con {@code security.credential-cache.ttl=0} cada solicitud vuelve a verificar la
+     * contraseña.
+     */
+    private static AuthenticationProvider authenticationProvider(UserDetailsService userDetailsService, MeterRegistry meterRegistry,
+                                                                 Duration credentialCacheTtl) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsService);
+        if (userDetailsService instanceof UserDetailsPasswordService passwordService)
+            provider.setUserDetailsPasswordService(passwordService);
+        if (credentialCacheTtl.isZero())
+            return provider;
+
+        CachingAuthenticationProvider caching = new CachingAuthenticationProvider(provider, credentialCacheTtl);
+        CaffeineCacheMetrics.monitor(meterRegistry, caching.getCache(), "credenciales");
+        return caching;
+    }
+
+}
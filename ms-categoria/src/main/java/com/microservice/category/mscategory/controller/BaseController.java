@@ -5,13 +5,21 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.Serializable;
+import java.util.List;
 
 public interface BaseController <E extends Base, ID extends Serializable> {
-    ResponseEntity<?> getAll();
-    ResponseEntity<?> getById(@PathVariable ID id);
-    ResponseEntity<?> save(@RequestBody E entity);
-    ResponseEntity<?> update(@PathVariable ID id, @RequestBody E entity);
-    ResponseEntity<?> delete(@PathVariable ID id);
+    ResponseEntity<?> getAll(@RequestParam ID after, @RequestParam Integer limit, @RequestParam List<String> fields, WebRequest request) throws Exception;
+    ResponseEntity<StreamingResponseBody> getAllStream();
+    ResponseEntity<?> getById(@PathVariable ID id, WebRequest request) throws Exception;
+    ResponseEntity<?> save(@RequestBody E entity) throws Exception;
+    ResponseEntity<?> update(@PathVariable ID id, @RequestBody E entity) throws Exception;
+    ResponseEntity<?> delete(@PathVariable ID id) throws Exception;
+    ResponseEntity<?> saveAll(@RequestBody List<E> entities) throws Exception;
+    ResponseEntity<?> updateAll(@RequestBody List<E> entities) throws Exception;
+    ResponseEntity<?> deleteAll(@RequestBody List<ID> ids) throws Exception;
 }
@@ -1,34 +1,66 @@
 package com.microservice.category.mscategory.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microservice.category.mscategory.dto.BulkResult;
+import com.microservice.category.mscategory.dto.CursorPage;
+import com.microservice.category.mscategory.exception.BadRequestException;
 import com.microservice.category.mscategory.exception.ErrorDetail;
+import com.microservice.category.mscategory.exception.NotFoundException;
 import com.microservice.category.mscategory.model.Base;
 import com.microservice.category.mscategory.model.Categoria;
+import com.microservice.category.mscategory.model.TableVersion;
 import com.microservice.category.mscategory.service.BaseServiceImpl;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
-import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
-import jakarta.validation.ValidationException;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.time.LocalDateTime;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public abstract class BaseControllerImpl<E extends Base, S extends BaseServiceImpl<E, Long>> implements BaseController<E, Long> {
+    protected static final int DEFAULT_LIMIT = 100;
+    protected static final int MAX_LIMIT = 1000;
+    protected static final int MAX_BULK_SIZE = 10000;
+
     @Autowired
     protected S service;
 
-    @Operation(summary = "Obtiene el listado de todas las categorias en formato paginado.")
+    @Autowired
+    protected ObjectMapper objectMapper;
+
+    @Autowired
+    protected Validator validator;
+
+    @Operation(summary = "Obtiene el listado de todas las categorias en formato paginado.",
+            description = "Retorna una pagina ordenada por id, de 'limit' categorias (" + DEFAULT_LIMIT + " si no se indica) "
+                    + "a partir del cursor 'after', junto con el cursor 'next_cursor' para pedir la siguiente. "
+                    + "El listado completo se obtiene con 'stream=true'. "
+                    + "Con 'fields' (por ejemplo fields=id,categoria) solo se consultan y retornan esos campos, ademas del id. "
+                    + "Acepta If-None-Match / If-Modified-Since con el ETag / Last-Modified de una respuesta anterior.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Retorna todas las categorias.", content = {
-                    @Content(mediaType = "application/json", schema = @Schema(implementation = Categoria.class))
+            @ApiResponse(responseCode = "200", description = "Retorna una pagina de categorias.", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = CursorPage.class))
+            }),
+            @ApiResponse(responseCode = "304", description = "El listado no cambio desde la respuesta anterior."),
+            @ApiResponse(responseCode = "400", description = "No se pudo procesar la solicitud.", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetail.class))
             }),
             @ApiResponse(responseCode = "404", description = "El recurso no existe", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetail.class))
@@ -38,17 +70,69 @@ public abstract class BaseControllerImpl<E extends Base, S extends BaseServiceIm
             }),
     })
     @GetMapping("/categorias")
-    public ResponseEntity<?> getAll( ) {
-        try {
-            List<E> entity = service.findAll();
-            if (entity.isEmpty())
-                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    public ResponseEntity<?> getAll(@RequestParam(required = false) Long after, @RequestParam(required = false) Integer limit,
+                                    @RequestParam(required = false) List<String> fields, WebRequest request) throws Exception {
+        // Los parametros se validan antes del ETag: una solicitud invalida nunca responde 304
+        if (after != null && after < 0)
+            throw new BadRequestException("El cursor ingresado no es valido");
+
+        int pageSize = limit == null ? DEFAULT_LIMIT : limit;
+        if (pageSize <= 0 || pageSize > MAX_LIMIT)
+            throw new BadRequestException("El limite debe estar entre 1 y " + MAX_LIMIT);
 
-            return new ResponseEntity<>(entity, HttpStatus.OK);
+        // La version se lee antes que las filas: si cambia en el medio, la proxima consulta vuelve a traerlas
+        TableVersion version = service.getTableVersion();
+        String eTag = eTag(version.getVersion());
+        Instant lastModified = version.getLastModified();
+        if (request.checkNotModified(eTag, lastModified.toEpochMilli()))
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
 
-        } catch (Exception ex) {
-            return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        if (fields != null) {
+            List<Map<String, Object>> rows = service.findAllAfter(after, pageSize + 1, fields);
+            Long nextCursor = null;
+            if (rows.size() > pageSize) {
+                rows = rows.subList(0, pageSize);
+                nextCursor = (Long) rows.get(pageSize - 1).get("id");
+            }
+            return ResponseEntity.ok().eTag(eTag).lastModified(lastModified).body(new CursorPage<>(rows, nextCursor));
+        }
+
+        // Se pide un elemento de mas para saber si existe una pagina siguiente
+        List<E> entity = service.findAllAfter(after, pageSize + 1);
+        Long nextCursor = null;
+        if (entity.size() > pageSize) {
+            entity = entity.subList(0, pageSize);
+            nextCursor = entity.get(pageSize - 1).getId();
         }
+        return ResponseEntity.ok().eTag(eTag).lastModified(lastModified).body(new CursorPage<>(entity, nextCursor));
+    }
+
+    @Operation(summary = "Obtiene el listado completo de categorias escribiendolo en la respuesta a medida que se lee de la base de datos.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Retorna todas las categorias.", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = Categoria.class))
+            }),
+    })
+    @GetMapping(path = "/categorias", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> getAllStream() {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                generator.writeStartArray();
+                service.forEach(entity -> {
+                    try {
+                        generator.writeObject(entity);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+                generator.writeEndArray();
+            } catch (IOException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new IOException(ex.getMessage(), ex);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @Operation(summary = "Obtiene una categoria segun el id.")
@@ -56,6 +140,7 @@ public abstract class BaseControllerImpl<E extends Base, S extends BaseServiceIm
             @ApiResponse(responseCode = "200", description = "Retorna una categoria.", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = Categoria.class))
             }),
+            @ApiResponse(responseCode = "304", description = "La categoria no cambio desde la respuesta anterior."),
             @ApiResponse(responseCode = "400", description = "No se pudo procesar la solicitud.", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetail.class))
             }),
@@ -67,22 +152,22 @@ public abstract class BaseControllerImpl<E extends Base, S extends BaseServiceIm
             }),
     })
     @GetMapping("/categoria/{id}")
-    public ResponseEntity<?> getById(@PathVariable @Valid Long id) {
-        try {
-            if (id == null || id <= 0)
-                throw new IllegalArgumentException("El id ingresado no es valido");
+    public ResponseEntity<?> getById(@PathVariable @Valid Long id, WebRequest request) throws Exception {
+        if (id == null || id <= 0)
+            throw new BadRequestException("El id ingresado no es valido");
 
-            if (service.findById(id) == null)
-                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        E entity = service.findById(id)
+                .orElseThrow(() -> new NotFoundException("No se encontro la categoria con el id: " + id));
 
-            return ResponseEntity.status(HttpStatus.OK).body(service.findById(id));
+        String eTag = eTag(entity.getVersion());
+        Instant lastModified = entity.getLastModified();
+        if (request.checkNotModified(eTag, lastModified == null ? -1 : lastModified.toEpochMilli()))
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
 
-        } catch (IllegalArgumentException ex) {
-            return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
-
-        } catch (Exception ex) {
-            return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK).eTag(eTag);
+        if (lastModified != null)
+            response.lastModified(lastModified);
+        return response.body(entity);
     }
 
     @Operation(summary = "Da de alta una categoria.")
@@ -101,25 +186,11 @@ public abstract class BaseControllerImpl<E extends Base, S extends BaseServiceIm
             }),
     })
     @PostMapping("/categorias")
-    public ResponseEntity<?> save(@RequestBody @Valid E entity) {
-        try {
-            if (entity == null)
-                throw new ValidationException("La entidad no puede ser nula");
-
-            return ResponseEntity.status(HttpStatus.OK).body(service.save(entity));
+    public ResponseEntity<?> save(@RequestBody @Valid E entity) throws Exception {
+        if (entity == null)
+            throw new BadRequestException("La entidad no puede ser nula");
 
-        } catch (DataIntegrityViolationException ex) {
-            ErrorDetail errorDetail = new ErrorDetail(HttpStatus.CONFLICT.value(), ex.getMessage(), "Conflict", LocalDateTime.now());
-            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorDetail);
-
-        } catch (ValidationException ex) {
-            ErrorDetail errorDetail = new ErrorDetail(HttpStatus.BAD_REQUEST.value(), ex.getMessage(), "Bad Request", LocalDateTime.now());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorDetail);
-
-        } catch (Exception ex) {
-            ErrorDetail errorDetail = new ErrorDetail(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Ocurrió un error interno en el servidor", "Internal Server Error", LocalDateTime.now());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorDetail);
-        }
+        return ResponseEntity.status(HttpStatus.OK).body(service.save(entity));
     }
 
     @Operation(summary = "Modifica una categoria segun el id.")
@@ -141,33 +212,13 @@ public abstract class BaseControllerImpl<E extends Base, S extends BaseServiceIm
             }),
     })
     @PutMapping("/categoria/{id}")
-    public ResponseEntity<?> update(@PathVariable Long id, @RequestBody @Valid E entity) {
-        try {
-            if (id == null || id <= 0)
-                throw new IllegalArgumentException("El id ingresado no es valido");
-
-            if (service.findById(id) == null)
-                throw new EntityNotFoundException("No se encontro la categoria con el id: " + id);
-
-            E updateEntity = service.update(id, entity);
-            return ResponseEntity.status(HttpStatus.OK).body(updateEntity);
-
-        } catch (DataIntegrityViolationException ex) {
-            ErrorDetail errorDetail = new ErrorDetail(HttpStatus.CONFLICT.value(), ex.getMessage(), "Conflict", LocalDateTime.now());
-            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorDetail);
-
-        } catch (IllegalArgumentException | ValidationException ex) {
-            ErrorDetail errorDetail = new ErrorDetail(HttpStatus.BAD_REQUEST.value(), ex.getMessage(), "Bad Request", LocalDateTime.now());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorDetail);
-
-        } catch (EntityNotFoundException ex) {
-            ErrorDetail errorDetail = new ErrorDetail(HttpStatus.NOT_FOUND.value(), ex.getMessage(), "Not Found", LocalDateTime.now());
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorDetail);
+    public ResponseEntity<?> update(@PathVariable Long id, @RequestBody @Valid E entity) throws Exception {
+        if (id == null || id <= 0)
+            throw new BadRequestException("El id ingresado no es valido");
 
-        } catch (Exception e) {
-            ErrorDetail errorDetail = new ErrorDetail(HttpStatus.INTERNAL_SERVER_ERROR.value(), e.getMessage(), "Internal Server Error", LocalDateTime.now());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorDetail);
-        }
+        E updateEntity = service.update(id, entity)
+                .orElseThrow(() -> new NotFoundException("No se encontro la categoria con el id: " + id));
+        return ResponseEntity.status(HttpStatus.OK).body(updateEntity);
     }
 
     @Operation(summary = "Elimina una categoria segun el id.")
@@ -186,28 +237,144 @@ public abstract class BaseControllerImpl<E extends Base, S extends BaseServiceIm
             }),
     })
     @DeleteMapping("/categoria/{id}")
-    public ResponseEntity<?> delete(@PathVariable Long id) {
-        try {
-            if (id == null || id <= 0) {
-                throw new IllegalArgumentException("El id ingresado no es valido");
+    public ResponseEntity<?> delete(@PathVariable Long id) throws Exception {
+        if (id == null || id <= 0)
+            throw new BadRequestException("El id ingresado no es valido");
+
+        if (service.deleteById(id) == 0)
+            throw new NotFoundException("No se encontro la categoria con el id: " + id);
+
+        return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+    }
+
+    @Operation(summary = "Da de alta varias categorias en una sola solicitud.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Retorna un resultado por categoria, en el mismo orden en que fueron enviadas.", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = BulkResult.class))
+            }),
+            @ApiResponse(responseCode = "400", description = "No se pudo procesar la solicitud.", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetail.class))
+            }),
+            @ApiResponse(responseCode = "409", description = "Otra solicitud dio de alta alguna de las categorias al mismo tiempo", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetail.class))
+            }),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetail.class))
+            }),
+    })
+    @PostMapping("/categorias/bulk")
+    public ResponseEntity<?> saveAll(@RequestBody List<E> entities) throws Exception {
+        validateBulkSize(entities);
+
+        List<BulkResult<E>> results = new ArrayList<>(Collections.nCopies(entities.size(), null));
+        List<Integer> positions = new ArrayList<>();
+        List<E> valid = new ArrayList<>();
+        for (int i = 0; i < entities.size(); i++) {
+            String error = validate(entities.get(i));
+            if (error != null) {
+                results.set(i, BulkResult.of(HttpStatus.BAD_REQUEST, error));
+            } else {
+                positions.add(i);
+                valid.add(entities.get(i));
             }
-            if (service.findById(id) == null)
-                throw new EntityNotFoundException("No se encontro la categoria con el id: " + id);
+        }
 
-            return ResponseEntity.status(HttpStatus.NO_CONTENT).body(service.delete(id));
+        List<BulkResult<E>> saved = service.saveAll(valid);
+        for (int i = 0; i < saved.size(); i++)
+            results.set(positions.get(i), saved.get(i));
 
-        } catch (EntityNotFoundException ex) {
-            ErrorDetail errorDetail = new ErrorDetail(HttpStatus.NOT_FOUND.value(), ex.getMessage(), "Not Found", LocalDateTime.now());
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorDetail);
+        return ResponseEntity.status(HttpStatus.OK).body(results);
+    }
 
-        } catch (IllegalArgumentException ex) {
-            ErrorDetail errorDetail = new ErrorDetail(HttpStatus.BAD_REQUEST.value(), ex.getMessage(), "Bad Request", LocalDateTime.now());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorDetail);
+    @Operation(summary = "Modifica varias categorias en una sola solicitud. Cada categoria debe incluir su id.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Retorna un resultado por categoria, en el mismo orden en que fueron enviadas.", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = BulkResult.class))
+            }),
+            @ApiResponse(responseCode = "400", description = "No se pudo procesar la solicitud.", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetail.class))
+            }),
+            @ApiResponse(responseCode = "409", description = "Otra solicitud modifico alguna de las categorias al mismo tiempo", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetail.class))
+            }),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetail.class))
+            }),
+    })
+    @PutMapping("/categorias/bulk")
+    public ResponseEntity<?> updateAll(@RequestBody List<E> entities) throws Exception {
+        validateBulkSize(entities);
 
-        } catch (Exception ex) {
-            ErrorDetail errorDetail = new ErrorDetail(HttpStatus.INTERNAL_SERVER_ERROR.value(), ex.getMessage(), "Internal Server Error", LocalDateTime.now());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorDetail);
+        List<BulkResult<E>> results = new ArrayList<>(Collections.nCopies(entities.size(), null));
+        List<Integer> positions = new ArrayList<>();
+        List<E> valid = new ArrayList<>();
+        for (int i = 0; i < entities.size(); i++) {
+            E entity = entities.get(i);
+            String error = entity != null && (entity.getId() == null || entity.getId() <= 0)
+                    ? "El id ingresado no es valido"
+                    : validate(entity);
+            if (error != null) {
+                results.set(i, BulkResult.of(HttpStatus.BAD_REQUEST, error));
+            } else {
+                positions.add(i);
+                valid.add(entity);
+            }
         }
+
+        List<BulkResult<E>> updated = service.updateAll(valid);
+        for (int i = 0; i < updated.size(); i++)
+            results.set(positions.get(i), updated.get(i));
+
+        return ResponseEntity.status(HttpStatus.OK).body(results);
     }
-}
 
+    @Operation(summary = "Elimina varias categorias segun sus ids.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Retorna un resultado por id, en el mismo orden en que fueron enviados.", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = BulkResult.class))
+            }),
+            @ApiResponse(responseCode = "400", description = "No se pudo procesar la solicitud.", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetail.class))
+            }),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetail.class))
+            }),
+    })
+    @DeleteMapping("/categorias/bulk")
+    public ResponseEntity<?> deleteAll(@RequestBody List<Long> ids) throws Exception {
+        validateBulkSize(ids);
+        if (ids.stream().anyMatch(id -> id == null || id <= 0))
+            throw new BadRequestException("El id ingresado no es valido");
+
+        return ResponseEntity.status(HttpStatus.OK).body(service.deleteAllById(ids));
+    }
+
+    /**
+     * ETag a partir de una version: cambia con cada escritura sobre el recurso. Es debil porque identifica el
+     * contenido y no los bytes de la respuesta, y Tomcat no comprime las respuestas con un ETag fuerte.
+     */
+    private static String eTag(Long version) {
+        return "W/\"" + version + "\"";
+    }
+
+    private void validateBulkSize(List<?> items) {
+        if (items == null || items.isEmpty())
+            throw new BadRequestException("La solicitud debe incluir al menos un elemento");
+
+        if (items.size() > MAX_BULK_SIZE)
+            throw new BadRequestException("La solicitud no puede incluir mas de " + MAX_BULK_SIZE + " elementos");
+    }
+
+    /**
+     * @return el primer error de validacion de la entidad, o null si es valida.
+     */
+    private String validate(E entity) {
+        if (entity == null)
+            return "La entidad no puede ser nula";
+
+        return validator.validate(entity).stream()
+                .findFirst()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .orElse(null);
+    }
+}
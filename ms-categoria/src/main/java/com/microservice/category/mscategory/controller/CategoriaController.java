@@ -1,13 +1,48 @@
 package com.microservice.category.mscategory.controller;
 
+import com.microservice.category.mscategory.dto.CursorPage;
+import com.microservice.category.mscategory.dto.SnapshotImportResult;
+import com.microservice.category.mscategory.exception.BadRequestException;
+import com.microservice.category.mscategory.exception.ErrorDetail;
+import com.microservice.category.mscategory.exception.NotFoundException;
 import com.microservice.category.mscategory.model.Categoria;
+import com.microservice.category.mscategory.model.OutboxEvent;
+import com.microservice.category.mscategory.service.CategoriaSearchIndex;
 import com.microservice.category.mscategory.service.CategoriaServiceImpl;
+import com.microservice.category.mscategory.service.CategoriaSnapshotService;
+import com.microservice.category.mscategory.service.OutboxService;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
+import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.info.Contact;
 import io.swagger.v3.oas.annotations.info.Info;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 
 @OpenAPIDefinition(
@@ -22,8 +57,212 @@ import org.springframework.web.bind.annotation.RestController;
         )
 )
 @RestController
+@Profile("!reactive")
 @CrossOrigin(origins = "*")
 @RequestMapping(path = "api/v1")
 public class CategoriaController extends BaseControllerImpl<Categoria, CategoriaServiceImpl> {
+    private static final int DEFAULT_SEARCH_LIMIT = 10;
+    private static final int MAX_SEARCH_LIMIT = 100;
+    private static final int MAX_WAIT_SECONDS = 30;
+    private static final String CHANGES_CURSOR_HEADER = "X-Changes-Cursor";
+    // Cada nivel del arbol ocupa al menos dos caracteres del path ("1/")
+    private static final int MAX_DEPTH = Categoria.MAX_PATH_LENGTH / 2;
+
+    @Autowired
+    private CategoriaSearchIndex searchIndex;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private CategoriaSnapshotService snapshotService;
+
+    @Autowired
+    private AsyncTaskExecutor taskExecutor;
+
+    @Operation(summary = "Busca las categorias cuyo nombre empieza con el prefijo indicado (autocompletado).",
+            description = "La busqueda no distingue mayusculas ni tildes y se resuelve en memoria, sin consultar la base de datos.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Retorna las categorias encontradas, ordenadas por nombre.", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = Categoria.class))
+            }),
+            @ApiResponse(responseCode = "400", description = "No se pudo procesar la solicitud.", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetail.class))
+            }),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetail.class))
+            }),
+    })
+    @GetMapping("/categorias/search")
+    public ResponseEntity<?> search(@RequestParam(required = false) String prefix, @RequestParam(required = false) Integer limit) {
+        if (prefix == null || CategoriaSearchIndex.normalize(prefix).isEmpty())
+            throw new BadRequestException("El prefijo no puede estar vacio");
+
+        int size = limit == null ? DEFAULT_SEARCH_LIMIT : limit;
+        if (size <= 0 || size > MAX_SEARCH_LIMIT)
+            throw new BadRequestException("El limite debe estar entre 1 y " + MAX_SEARCH_LIMIT);
+
+        return ResponseEntity.status(HttpStatus.OK).body(searchIndex.search(prefix, size));
+    }
+
+    @Operation(summary = "Obtiene todas las subcategorias de una categoria, directas e indirectas.",
+            description = "Cada subcategoria aparece despues de su padre. Con 'depth' solo se incluyen los primeros 'depth' "
+                    + "niveles debajo de la categoria (depth=1 retorna sus hijas). Se resuelve con una unica consulta, "
+                    + "sin importar la profundidad del arbol.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Retorna las subcategorias.", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = Categoria.class))
+            }),
+            @ApiResponse(responseCode = "400", description = "No se pudo procesar la solicitud.", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetail.class))
+            }),
+            @ApiResponse(responseCode = "404", description = "El recurso no existe", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetail.class))
+            }),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetail.class))
+            }),
+    })
+    @GetMapping("/categoria/{id}/descendants")
+    public ResponseEntity<?> getDescendants(@PathVariable Long id, @RequestParam(required = false) Integer depth) throws Exception {
+        if (depth != null && (depth <= 0 || depth > MAX_DEPTH))
+            throw new BadRequestException("La profundidad debe estar entre 1 y " + MAX_DEPTH);
+
+        return ResponseEntity.status(HttpStatus.OK).body(service.findDescendants(findCategoria(id), depth));
+    }
+
+    @Operation(summary = "Obtiene los ancestros de una categoria, desde la raiz hasta su padre.",
+            description = "Se resuelve con una unica consulta por clave primaria, sin importar la profundidad del arbol.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Retorna los ancestros; vacio si la categoria no tiene padre.", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = Categoria.class))
+            }),
+            @ApiResponse(responseCode = "400", description = "No se pudo procesar la solicitud.", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetail.class))
+            }),
+            @ApiResponse(responseCode = "404", description = "El recurso no existe", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetail.class))
+            }),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetail.class))
+            }),
+    })
+    @GetMapping("/categoria/{id}/ancestors")
+    public ResponseEntity<?> getAncestors(@PathVariable Long id) throws Exception {
+        return ResponseEntity.status(HttpStatus.OK).body(service.findAncestors(findCategoria(id)));
+    }
+
+    @Operation(summary = "Obtiene los cambios (altas, modificaciones y bajas) confirmados despues del cursor 'since'.",
+            description = "Cada cambio incluye su 'seq'; 'next_cursor' es el valor a enviar en 'since' en la siguiente consulta. "
+                    + "Con 'wait' mayor a 0, si no hay cambios la respuesta se demora hasta que ocurra uno o pasen 'wait' segundos (long-poll).")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Retorna los cambios, en el orden en que se confirmaron.", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = CursorPage.class))
+            }),
+            @ApiResponse(responseCode = "400", description = "No se pudo procesar la solicitud.", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetail.class))
+            }),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetail.class))
+            }),
+    })
+    @GetMapping("/categorias/changes")
+    public DeferredResult<ResponseEntity<?>> changes(@RequestParam(required = false) Long since, @RequestParam(required = false) Integer limit,
+                                                     @RequestParam(required = false) Integer wait) {
+        long cursor = since == null ? 0 : since;
+        int pageSize = limit == null ? DEFAULT_LIMIT : limit;
+        int waitSeconds = wait == null ? 0 : wait;
+        if (cursor < 0)
+            throw new BadRequestException("El cursor ingresado no es valido");
+        if (pageSize <= 0 || pageSize > MAX_LIMIT)
+            throw new BadRequestException("El limite debe estar entre 1 y " + MAX_LIMIT);
+        if (waitSeconds < 0 || waitSeconds > MAX_WAIT_SECONDS)
+            throw new BadRequestException("La espera debe estar entre 0 y " + MAX_WAIT_SECONDS + " segundos");
+
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(TimeUnit.SECONDS.toMillis(waitSeconds + 5L));
+        // Se obtiene antes de consultar: un commit posterior a la consulta siempre completa este future
+        CompletableFuture<Void> nextChange = outboxService.nextChange();
+        List<OutboxEvent> changes = outboxService.findAfter(cursor, pageSize);
+        if (!changes.isEmpty() || waitSeconds == 0) {
+            result.setResult(changesPage(changes, cursor));
+            return result;
+        }
+
+        nextChange.copy()
+                .completeOnTimeout(null, waitSeconds, TimeUnit.SECONDS)
+                .thenRunAsync(() -> result.setResult(changesPage(outboxService.findAfter(cursor, pageSize), cursor)), taskExecutor)
+                .exceptionally(ex -> {
+                    // El error se responde con RestExceptionHandler, igual que los de la solicitud original
+                    result.setErrorResult(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+                    return null;
+                });
+        return result;
+    }
+
+    @Operation(summary = "Exporta todas las categorias como NDJSON comprimido con gzip (una categoria por linea).",
+            description = "Las categorias se escriben a medida que se leen de la base de datos. El header 'X-Changes-Cursor' es el "
+                    + "valor a enviar en 'since' a /categorias/changes para seguir los cambios posteriores al snapshot.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Retorna el snapshot.", content = {
+                    @Content(mediaType = "application/gzip")
+            }),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetail.class))
+            }),
+    })
+    @GetMapping("/categorias/snapshot")
+    public ResponseEntity<StreamingResponseBody> exportSnapshot() throws Exception {
+        // Se lee antes del snapshot: los cambios confirmados mientras se exporta se vuelven a recibir en el feed
+        Long cursor = service.getTableVersion().getVersion();
+        StreamingResponseBody body = outputStream -> {
+            try {
+                snapshotService.export(outputStream);
+            } catch (IOException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new IOException(ex.getMessage(), ex);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/gzip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("categorias.ndjson.gz").build().toString())
+                .header(CHANGES_CURSOR_HEADER, String.valueOf(cursor))
+                .body(body);
+    }
+
+    @Operation(summary = "Importa un snapshot generado por /categorias/snapshot, comprimido con gzip o como NDJSON plano.",
+            description = "Las categorias se guardan en lotes de " + CategoriaSnapshotService.IMPORT_BATCH_SIZE + ", cada uno en su propia "
+                    + "transaccion; el avance se publica en la metrica snapshot.import.rows. Los ids se asignan nuevamente y las "
+                    + "categorias cuyo nombre ya existe se omiten.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Retorna la cantidad de categorias importadas y omitidas.", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = SnapshotImportResult.class))
+            }),
+            @ApiResponse(responseCode = "400", description = "Una linea del snapshot no es una categoria valida; los lotes anteriores quedan importados.", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetail.class))
+            }),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDetail.class))
+            }),
+    })
+    @PostMapping("/categorias/snapshot")
+    public ResponseEntity<?> importSnapshot(InputStream body) throws Exception {
+        return ResponseEntity.status(HttpStatus.OK).body(snapshotService.importSnapshot(body));
+    }
+
+    /**
+     * Lee la categoria con {@link CategoriaServiceImpl#findById(Long)}, por lo que suele resolverse desde la cache.
+     */
+    private Categoria findCategoria(Long id) throws Exception {
+        if (id == null || id <= 0)
+            throw new BadRequestException("El id ingresado no es valido");
+
+        return service.findById(id)
+                .orElseThrow(() -> new NotFoundException("No se encontro la categoria con el id: " + id));
+    }
 
+    private static ResponseEntity<?> changesPage(List<OutboxEvent> changes, long since) {
+        Long nextCursor = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSeq();
+        return ResponseEntity.status(HttpStatus.OK).body(new CursorPage<>(changes, nextCursor));
+    }
 }
@@ -0,0 +1,147 @@
+package com.microservice.category.mscategory.controller;
+
+import com.microservice.category.mscategory.dto.CursorPage;
+import com.microservice.category.mscategory.exception.ApiException;
+import com.microservice.category.mscategory.exception.ErrorDetail;
+import com.microservice.category.mscategory.exception.RestExceptionHandler;
+import com.microservice.category.mscategory.model.Categoria;
+import com.microservice.category.mscategory.service.ReactiveCategoriaService;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ValidationException;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Variante no bloqueante de {@link CategoriaController}, activa con el perfil reactive.
+ *
+ * Expone las mismas rutas y respuestas de error (ErrorDetail) que la variante servlet, salvo los
+ * endpoints bulk y el listado en modo stream. Igual que {@link RestExceptionHandler}, los errores 500 se
+ * registran con su causa y se responden con un mensaje fijo.
+ */
+@RestController
+@Profile("reactive")
+@CrossOrigin(origins = "*")
+@RequestMapping(path = "api/v1")
+public class ReactiveCategoriaController {
+    private static final Logger log = LoggerFactory.getLogger(ReactiveCategoriaController.class);
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 1000;
+
+    private final ReactiveCategoriaService service;
+    private final Validator validator;
+
+    public ReactiveCategoriaController(ReactiveCategoriaService service, Validator validator) {
+        this.service = service;
+        this.validator = validator;
+    }
+
+    @GetMapping("/categorias")
+    public Mono<ResponseEntity<?>> getAll(@RequestParam(required = false) Long after, @RequestParam(required = false) Integer limit) {
+        if (after != null && after < 0)
+            return Mono.just(error(HttpStatus.BAD_REQUEST, "El cursor ingresado no es valido"));
+
+        int pageSize = limit == null ? DEFAULT_LIMIT : limit;
+        if (pageSize <= 0 || pageSize > MAX_LIMIT)
+            return Mono.just(error(HttpStatus.BAD_REQUEST, "El limite debe estar entre 1 y " + MAX_LIMIT));
+
+        // Se pide un elemento de mas para saber si existe una pagina siguiente
+        return service.findAllAfter(after, pageSize + 1).collectList()
+                .<ResponseEntity<?>>map(entity -> {
+                    Long nextCursor = null;
+                    List<Categoria> page = entity;
+                    if (entity.size() > pageSize) {
+                        page = entity.subList(0, pageSize);
+                        nextCursor = page.get(pageSize - 1).getId();
+                    }
+                    return new ResponseEntity<>(new CursorPage<>(page, nextCursor), HttpStatus.OK);
+                })
+                .onErrorResume(ex -> Mono.just(serverError("/categorias", ex)));
+    }
+
+    @GetMapping("/categoria/{id}")
+    public Mono<ResponseEntity<?>> getById(@PathVariable Long id) {
+        if (id == null || id <= 0)
+            return Mono.just(error(HttpStatus.BAD_REQUEST, "El id ingresado no es valido"));
+
+        return service.findById(id)
+                .<ResponseEntity<?>>map(entity -> ResponseEntity.status(HttpStatus.OK).body(entity))
+                .defaultIfEmpty(error(HttpStatus.NOT_FOUND, "No se encontro la categoria con el id: " + id))
+                .onErrorResume(ex -> Mono.just(serverError("/categoria/" + id, ex)));
+    }
+
+    @PostMapping("/categorias")
+    public Mono<ResponseEntity<?>> save(@RequestBody Categoria entity) {
+        return Mono.fromRunnable(() -> validate(entity))
+                .then(Mono.defer(() -> service.save(entity)))
+                .<ResponseEntity<?>>map(saved -> ResponseEntity.status(HttpStatus.OK).body(saved))
+                .onErrorResume(DataIntegrityViolationException.class,
+                        ex -> Mono.just(error(HttpStatus.CONFLICT, ex.getMessage())))
+                .onErrorResume(ValidationException.class,
+                        ex -> Mono.just(error(HttpStatus.BAD_REQUEST, ex.getMessage())))
+                .onErrorResume(ApiException.class, ex -> Mono.just(error(ex.getStatus(), ex.getMessage())))
+                .onErrorResume(ex -> Mono.just(serverError("/categorias", ex)));
+    }
+
+    @PutMapping("/categoria/{id}")
+    public Mono<ResponseEntity<?>> update(@PathVariable Long id, @RequestBody Categoria entity) {
+        return Mono.fromRunnable(() -> {
+                    if (id == null || id <= 0)
+                        throw new IllegalArgumentException("El id ingresado no es valido");
+                    validate(entity);
+                })
+                .then(Mono.defer(() -> service.update(id, entity)))
+                .switchIfEmpty(Mono.error(() -> new EntityNotFoundException("No se encontro la categoria con el id: " + id)))
+                .<ResponseEntity<?>>map(updated -> ResponseEntity.status(HttpStatus.OK).body(updated))
+                .onErrorResume(DataIntegrityViolationException.class,
+                        ex -> Mono.just(error(HttpStatus.CONFLICT, ex.getMessage())))
+                .onErrorResume(ex -> ex instanceof IllegalArgumentException || ex instanceof ValidationException,
+                        ex -> Mono.just(error(HttpStatus.BAD_REQUEST, ex.getMessage())))
+                .onErrorResume(EntityNotFoundException.class,
+                        ex -> Mono.just(error(HttpStatus.NOT_FOUND, ex.getMessage())))
+                .onErrorResume(ApiException.class, ex -> Mono.just(error(ex.getStatus(), ex.getMessage())))
+                .onErrorResume(ex -> Mono.just(serverError("/categoria/" + id, ex)));
+    }
+
+    @DeleteMapping("/categoria/{id}")
+    public Mono<ResponseEntity<?>> delete(@PathVariable Long id) {
+        if (id == null || id <= 0)
+            return Mono.just(error(HttpStatus.BAD_REQUEST, "El id ingresado no es valido"));
+
+        return service.deleteById(id)
+                .<ResponseEntity<?>>map(rows -> rows == 0
+                        ? error(HttpStatus.NOT_FOUND, "No se encontro la categoria con el id: " + id)
+                        : ResponseEntity.status(HttpStatus.NO_CONTENT).build())
+                .onErrorResume(DataIntegrityViolationException.class,
+                        ex -> Mono.just(error(HttpStatus.CONFLICT, ex.getMessage())))
+                .onErrorResume(ex -> Mono.just(serverError("/categoria/" + id, ex)));
+    }
+
+    private void validate(Categoria entity) {
+        if (entity == null)
+            throw new ValidationException("La entidad no puede ser nula");
+
+        validator.validate(entity).stream()
+                .findFirst()
+                .ifPresent(violation -> {
+                    throw new ValidationException(violation.getPropertyPath() + ": " + violation.getMessage());
+                });
+    }
+
+    private static ResponseEntity<ErrorDetail> error(HttpStatus status, String message) {
+        return ResponseEntity.status(status).body(ErrorDetail.of(status, message));
+    }
+
+    private static ResponseEntity<ErrorDetail> serverError(String path, Throwable ex) {
+        log.error("Error {} en uri=/api/v1{}", HttpStatus.INTERNAL_SERVER_ERROR.value(), path, ex);
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, RestExceptionHandler.INTERNAL_ERROR_MESSAGE);
+    }
+}
@@ -0,0 +1,33 @@
+package com.microservice.category.mscategory.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Resultado de un elemento dentro de una operacion masiva. El orden de los resultados
+ * coincide con el orden de los elementos enviados en la solicitud.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({"status_code", "message", "entity"})
+public class BulkResult<E> {
+    private Integer status_code;
+    private String message;
+    private E entity;
+
+    public static <E> BulkResult<E> ok(E entity) {
+        return new BulkResult<>(HttpStatus.OK.value(), null, entity);
+    }
+
+    public static <E> BulkResult<E> of(HttpStatus status, String message) {
+        return new BulkResult<>(status.value(), message, null);
+    }
+}
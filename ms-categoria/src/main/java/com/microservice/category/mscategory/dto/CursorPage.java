@@ -0,0 +1,23 @@
+package com.microservice.category.mscategory.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Pagina de un listado paginado por cursor. {@code next_cursor} es el valor a enviar
+ * en {@code after} para obtener la pagina siguiente, o null si no hay mas resultados.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonPropertyOrder({"items", "next_cursor"})
+public class CursorPage<E> {
+    private List<E> items;
+    private Long next_cursor;
+}
@@ -0,0 +1,20 @@
+package com.microservice.category.mscategory.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Resultado de la importacion de un snapshot: las categorias guardadas y las omitidas porque su nombre ya existia.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonPropertyOrder({"imported", "skipped"})
+public class SnapshotImportResult {
+    private Long imported;
+    private Long skipped;
+}
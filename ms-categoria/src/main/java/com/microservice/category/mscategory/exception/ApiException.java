@@ -0,0 +1,20 @@
+package com.microservice.category.mscategory.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Error esperado de la API (un id invalido, una categoria inexistente o duplicada) que se responde con un
+ * {@link ErrorDetail} y el status indicado (ver {@link RestExceptionHandler}).
+ * No registra el stack trace: el error lo explica el mensaje, y recorrer el stack en cada 400, 404 o 409 es
+ * la mayor parte de su costo. Si la excepcion tiene una causa, el stack trace queda registrado en ella.
+ */
+@Getter
+public abstract class ApiException extends RuntimeException {
+    private final HttpStatus status;
+
+    protected ApiException(HttpStatus status, String message, Throwable cause) {
+        super(message, cause, false, false);
+        this.status = status;
+    }
+}
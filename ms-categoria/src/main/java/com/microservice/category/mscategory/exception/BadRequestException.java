@@ -0,0 +1,13 @@
+package com.microservice.category.mscategory.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Los datos de la solicitud no son validos (400).
+ */
+public class BadRequestException extends ApiException {
+
+    public BadRequestException(String message) {
+        super(HttpStatus.BAD_REQUEST, message, null);
+    }
+}
@@ -0,0 +1,13 @@
+package com.microservice.category.mscategory.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * La solicitud entra en conflicto con los datos guardados, por ejemplo una categoria duplicada o modificada por otra solicitud (409).
+ */
+public class ConflictException extends ApiException {
+
+    public ConflictException(String message) {
+        super(HttpStatus.CONFLICT, message, null);
+    }
+}
@@ -6,7 +6,10 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.springframework.http.HttpStatus;
+
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 @Getter
 @Setter
@@ -20,5 +23,26 @@ public class ErrorDetail {
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd' 'HH:mm:ss")
     private LocalDateTime timestamp;
 
+    // El timestamp se publica con precision de segundos, por lo que se reutiliza el del segundo actual
+    private static volatile Second currentSecond = new Second(0, null);
+
+    /**
+     * @return el detalle del error con el status, su descripcion y el segundo actual.
+     */
+    public static ErrorDetail of(HttpStatus status, String message) {
+        return new ErrorDetail(status.value(), message, status.getReasonPhrase(), now());
+    }
+
+    private static LocalDateTime now() {
+        long epochSecond = System.currentTimeMillis() / 1000;
+        Second second = currentSecond;
+        if (second.epochSecond() != epochSecond) {
+            second = new Second(epochSecond, LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+            currentSecond = second;
+        }
+        return second.time();
+    }
 
+    private record Second(long epochSecond, LocalDateTime time) {
+    }
 }
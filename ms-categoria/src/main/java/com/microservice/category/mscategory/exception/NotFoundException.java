@@ -0,0 +1,13 @@
+package com.microservice.category.mscategory.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * El recurso solicitado no existe (404).
+ */
+public class NotFoundException extends ApiException {
+
+    public NotFoundException(String message) {
+        super(HttpStatus.NOT_FOUND, message, null);
+    }
+}
@@ -0,0 +1,62 @@
+package com.microservice.category.mscategory.exception;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
+
+/**
+ * Responde los errores de los controllers con un {@link ErrorDetail}: las {@link ApiException} con su status,
+ * las excepciones propias de Spring MVC (parametros invalidos, JSON mal formado, metodo no soportado, etc.) con
+ * el status que les asigna {@link ResponseEntityExceptionHandler}, y cualquier otra con 500.
+ * Los errores 5xx se registran con su causa y se responden con un mensaje fijo: el de la excepcion puede
+ * incluir el SQL o el texto del driver, que no debe llegar al cliente.
+ */
+@RestControllerAdvice
+@Profile("!reactive")
+public class RestExceptionHandler extends ResponseEntityExceptionHandler {
+    public static final String INTERNAL_ERROR_MESSAGE = "Ocurrió un error interno en el servidor";
+
+    private static final Logger log = LoggerFactory.getLogger(RestExceptionHandler.class);
+
+    @ExceptionHandler(ApiException.class)
+    public ResponseEntity<ErrorDetail> handleApiException(ApiException ex, WebRequest request) {
+        if (ex.getStatus().is5xxServerError())
+            return serverError(ex.getStatus(), ex, request);
+
+        return ResponseEntity.status(ex.getStatus()).body(ErrorDetail.of(ex.getStatus(), ex.getMessage()));
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ErrorDetail> handleUnexpectedException(Exception ex, WebRequest request) {
+        return serverError(HttpStatus.INTERNAL_SERVER_ERROR, ex, request);
+    }
+
+    @Override
+    protected ResponseEntity<Object> handleExceptionInternal(Exception ex, Object body, HttpHeaders headers, HttpStatusCode statusCode,
+                                                             WebRequest request) {
+        if (statusCode.is5xxServerError())
+            log.error("Error {} en {}", statusCode.value(), request.getDescription(false), ex);
+        return super.handleExceptionInternal(ex, body, headers, statusCode, request);
+    }
+
+    @Override
+    protected ResponseEntity<Object> createResponseEntity(Object body, HttpHeaders headers, HttpStatusCode statusCode, WebRequest request) {
+        HttpStatus status = HttpStatus.valueOf(statusCode.value());
+        String message = body instanceof ProblemDetail problemDetail ? problemDetail.getDetail() : status.getReasonPhrase();
+        return ResponseEntity.status(statusCode).headers(headers).body(ErrorDetail.of(status, message));
+    }
+
+    private ResponseEntity<ErrorDetail> serverError(HttpStatus status, Exception ex, WebRequest request) {
+        log.error("Error {} en {}", status.value(), request.getDescription(false), ex);
+        return ResponseEntity.status(status).body(ErrorDetail.of(status, INTERNAL_ERROR_MESSAGE));
+    }
+}
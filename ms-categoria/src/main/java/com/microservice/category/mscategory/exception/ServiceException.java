@@ -0,0 +1,13 @@
+package com.microservice.category.mscategory.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Error inesperado de un servicio (500). Conserva la excepcion original como causa.
+ */
+public class ServiceException extends ApiException {
+
+    public ServiceException(String message, Throwable cause) {
+        super(HttpStatus.INTERNAL_SERVER_ERROR, message, cause);
+    }
+}
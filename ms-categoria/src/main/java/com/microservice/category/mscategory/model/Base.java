@@ -1,15 +1,21 @@
 package com.microservice.category.mscategory.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.io.Serializable;
+import java.time.Instant;
 
 @Getter
 @Setter
@@ -18,6 +24,27 @@ import java.io.Serializable;
 @MappedSuperclass
 public class Base implements Serializable {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
+
+    /**
+     * Se incrementa con cada UPDATE; se publica como ETag de la entidad.
+     */
+    @JsonIgnore
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    /**
+     * Fecha del ultimo INSERT o UPDATE; se publica como Last-Modified de la entidad.
+     */
+    @JsonIgnore
+    @Column(name = "last_modified")
+    private Instant lastModified;
+
+    @PrePersist
+    @PreUpdate
+    protected void touch() {
+        lastModified = Instant.now();
+    }
 }
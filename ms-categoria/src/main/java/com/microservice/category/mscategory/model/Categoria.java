@@ -1,23 +1,133 @@
 package com.microservice.category.mscategory.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
-import lombok.AllArgsConstructor;
+import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Las categorias forman un arbol: cada una tiene, opcionalmente, una categoria padre.
+ * Ademas del padre se guarda el camino materializado ({@code path}): los ids de todos sus ancestros, desde la
+ * raiz, separados y rodeados por '/' ("/" para una raiz, "/1/5/" para una categoria cuyo padre es 5 y cuyo
+ * abuelo es 1). Asi los descendientes de una categoria son las filas cuyo path empieza con
+ * {@link #getSubtreePath()}, un rango del indice {@code idx_categoria_path}, y sus ancestros se obtienen del
+ * path sin recorrer el arbol.
+ * El path y la profundidad se escriben en el INSERT; al mover una categoria los actualiza una unica sentencia
+ * para todo su subarbol (ver {@code CategoriaRepository#moveSubtree}), nunca el UPDATE de la entidad.
+ */
 @Getter
 @Setter
-@AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name="categoria")
+@Table(name="categoria", indexes = {
+        @Index(name = Categoria.UNIQUE_NAME, columnList = "categoria", unique = true),
+        @Index(name = "idx_categoria_path", columnList = "path, depth")
+})
 public class Categoria extends Base {
+    public static final String ROOT_PATH = "/";
+    public static final String UNIQUE_NAME = "uk_categoria_categoria";
+    public static final String PARENT_FOREIGN_KEY = "fk_categoria_parent";
+
+    /**
+     * El largo maximo del path; con ids de 7 digitos alcanza para mas de 80 niveles.
+     */
+    public static final int MAX_PATH_LENGTH = 700;
+    public static final int MAX_NAME_LENGTH = 255;
 
     @NotBlank
-    @Column(name = "categoria", nullable = false)
+    @Size(max = MAX_NAME_LENGTH)
+    @Column(name = "categoria", nullable = false, length = MAX_NAME_LENGTH)
     private String categoria;
+
+    @JsonProperty("parent_id")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Column(name = "parent_id")
+    private Long parentId;
+
+    // Solo define la clave foranea de parent_id: no se lee ni se escribe
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "parent_id", insertable = false, updatable = false, foreignKey = @ForeignKey(name = Categoria.PARENT_FOREIGN_KEY))
+    private Categoria parent;
+
+    @JsonIgnore
+    @ColumnDefault("'" + ROOT_PATH + "'")
+    @Column(name = "path", nullable = false, updatable = false, length = MAX_PATH_LENGTH)
+    private String path = ROOT_PATH;
+
+    /**
+     * La cantidad de ancestros: 0 para una raiz.
+     */
+    @JsonIgnore
+    @ColumnDefault("0")
+    @Column(name = "depth", nullable = false, updatable = false)
+    private int depth;
+
+    public Categoria(String categoria) {
+        this.categoria = categoria;
+    }
+
+    public Categoria(String categoria, Long parentId) {
+        this.categoria = categoria;
+        this.parentId = parentId;
+    }
+
+    /**
+     * Ubica la categoria debajo de la categoria {@code parentId}, cuyo path es {@code parentPath}, o como raiz
+     * si {@code parentId} es null.
+     */
+    public void placeUnder(Long parentId, String parentPath) {
+        this.parentId = parentId;
+        this.path = parentId == null ? ROOT_PATH : parentPath + parentId + "/";
+        this.depth = depthOf(path);
+    }
+
+    /**
+     * @return el prefijo del path de todos sus descendientes.
+     */
+    @JsonIgnore
+    public String getSubtreePath() {
+        return path + getId() + "/";
+    }
+
+    /**
+     * @return los ids de sus ancestros, desde la raiz hasta el padre.
+     */
+    @JsonIgnore
+    public List<Long> getAncestorIds() {
+        return ancestorIdsOf(path);
+    }
+
+    /**
+     * @return los ids de los ancestros de una categoria con el path indicado, desde la raiz hasta el padre.
+     */
+    public static List<Long> ancestorIdsOf(String path) {
+        return Arrays.stream(path.split("/"))
+                .filter(id -> !id.isEmpty())
+                .map(Long::valueOf)
+                .toList();
+    }
+
+    /**
+     * @return la profundidad de una categoria con el path indicado.
+     */
+    public static int depthOf(String path) {
+        return (int) path.chars().filter(c -> c == '/').count() - 1;
+    }
 }
@@ -0,0 +1,82 @@
+package com.microservice.category.mscategory.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Cambio sobre una tabla, escrito en la misma transaccion que la modificacion (outbox transaccional).
+ *
+ * {@code seq} es la version de la tabla asignada a esa transaccion (ver {@code TableVersionService}):
+ * todos los cambios de una transaccion comparten el mismo {@code seq}, y como la version se asigna con
+ * la fila de la tabla bloqueada hasta el commit, los {@code seq} se hacen visibles en orden creciente.
+ * Un consumidor puede leer con {@code seq > since} sin saltearse cambios.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "outbox_event", indexes = @Index(name = "idx_outbox_event_table_seq", columnList = "table_name, seq, id"))
+@JsonPropertyOrder({"seq", "operation", "entity_id", "entity", "created_at"})
+public class OutboxEvent {
+
+    public enum Operation { SAVE, DELETE }
+
+    @JsonIgnore
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long seq;
+
+    @JsonIgnore
+    @Column(name = "table_name", nullable = false, length = 64)
+    private String tableName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Operation operation;
+
+    @JsonProperty("entity_id")
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    /**
+     * La entidad en formato JSON tal como queda despues de un SAVE; null en un DELETE.
+     */
+    @JsonRawValue
+    @JsonProperty("entity")
+    @Lob
+    @Column(name = "payload")
+    private String payload;
+
+    @JsonProperty("created_at")
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public OutboxEvent(String tableName, Long seq, Operation operation, Long entityId, String payload, Instant createdAt) {
+        this.tableName = tableName;
+        this.seq = seq;
+        this.operation = operation;
+        this.entityId = entityId;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+}
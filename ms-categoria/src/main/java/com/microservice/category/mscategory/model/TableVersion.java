@@ -0,0 +1,35 @@
+package com.microservice.category.mscategory.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Version de una tabla completa: se incrementa en la misma transaccion que cada escritura,
+ * y permite responder si el listado cambio sin leer ni hashear sus filas.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "table_version")
+public class TableVersion {
+
+    @Id
+    @Column(name = "table_name", length = 64)
+    private String tableName;
+
+    @Column(nullable = false)
+    private Long version;
+
+    @Column(name = "last_modified", nullable = false)
+    private Instant lastModified;
+}
@@ -1,11 +1,50 @@
 package com.microservice.category.mscategory.repository;
 
 import com.microservice.category.mscategory.model.Base;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.query.Param;
 
 import java.io.Serializable;
+import java.util.List;
+import java.util.stream.Stream;
 
 @NoRepositoryBean
 public interface BaseRepository <E extends Base, ID extends Serializable> extends JpaRepository<E, ID> {
+
+    /**
+     * Primera pagina del listado ordenado por id (paginacion por cursor, sin COUNT).
+     */
+    List<E> findByOrderByIdAsc(Pageable pageable);
+
+    /**
+     * Pagina siguiente al cursor: las entidades con id mayor a {@code id}, ordenadas por id.
+     */
+    List<E> findByIdGreaterThanOrderByIdAsc(ID id, Pageable pageable);
+
+    /**
+     * Recorre toda la tabla ordenada por id sin materializarla en memoria.
+     * Debe consumirse dentro de una transaccion y cerrarse al terminar.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select e from #{#entityName} e order by e.id")
+    Stream<E> streamAllByOrderByIdAsc();
+
+    /**
+     * Elimina por id con un unico DELETE, sin cargar la entidad antes.
+     *
+     * @return la cantidad de filas eliminadas.
+     */
+    @Modifying
+    @Query("delete from #{#entityName} e where e.id = :id")
+    int deleteOneById(@Param("id") ID id);
 }
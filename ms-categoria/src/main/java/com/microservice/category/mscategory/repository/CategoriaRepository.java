@@ -1,10 +1,80 @@
 package com.microservice.category.mscategory.repository;
 
+import com.microservice.category.mscategory.config.CacheConfiguration;
 import com.microservice.category.mscategory.model.Categoria;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface CategoriaRepository extends BaseRepository<Categoria, Long> {
 
+    @Cacheable(cacheNames = CacheConfiguration.CATEGORIAS_POR_NOMBRE, unless = "#result == null")
     Categoria findByCategoria(String category);
+
+    List<Categoria> findByCategoriaIn(Collection<String> categories);
+
+    /**
+     * Los descendientes de una categoria: las filas cuyo path empieza con {@code subtreePath}, un unico rango del
+     * indice idx_categoria_path (el prefijo es un parametro constante, no una expresion sobre otra fila). El orden
+     * por path ubica a cada categoria despues de su padre.
+     *
+     * @param subtreePath el prefijo del path de los descendientes, ver {@link Categoria#getSubtreePath()}.
+     */
+    List<Categoria> findByPathStartingWithOrderByPathAscIdAsc(String subtreePath);
+
+    /**
+     * Igual que {@link #findByPathStartingWithOrderByPathAscIdAsc}, solo hasta la profundidad {@code depth}.
+     */
+    List<Categoria> findByPathStartingWithAndDepthLessThanEqualOrderByPathAscIdAsc(String subtreePath, int depth);
+
+    /**
+     * Busca los ancestros de una categoria por los ids de su path, ordenados desde la raiz.
+     */
+    List<Categoria> findByIdInOrderByDepthAsc(Collection<Long> ids);
+
+    /**
+     * Lee el path de una categoria directamente de la base de datos, sin pasar por el contexto de persistencia:
+     * refleja los subarboles movidos por {@link #moveSubtree} en la misma transaccion.
+     */
+    @Query("select c.path from Categoria c where c.id = :id")
+    String findPathById(@Param("id") Long id);
+
+    /**
+     * Mueve una categoria y todos sus descendientes con un unico UPDATE: reemplaza el prefijo de su path y
+     * ajusta su profundidad. No modifica la version de las filas, ya que el path y la profundidad no se
+     * publican en el JSON.
+     *
+     * @param id la categoria que se mueve.
+     * @param pattern el prefijo actual del path de sus descendientes seguido de '%'.
+     * @param oldPath el path actual de la categoria.
+     * @param newPath el path de la categoria en su nueva ubicacion.
+     * @param depthDelta la diferencia entre la nueva profundidad de la categoria y la anterior.
+     * @return la cantidad de filas movidas, incluida la categoria.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("update Categoria c set c.path = concat(:newPath, substring(c.path, length(:oldPath) + 1)), "
+            + "c.depth = c.depth + :depthDelta where c.id = :id or c.path like :pattern")
+    int moveSubtree(@Param("id") Long id, @Param("pattern") String pattern, @Param("oldPath") String oldPath,
+                    @Param("newPath") String newPath, @Param("depthDelta") int depthDelta);
+
+    /**
+     * Recorre toda la tabla ordenada por path, por lo que cada categoria aparece despues de su padre.
+     * Debe consumirse dentro de una transaccion y cerrarse al terminar.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select c from Categoria c order by c.path, c.id")
+    Stream<Categoria> streamAllByOrderByPathAscIdAsc();
 }
@@ -0,0 +1,39 @@
+package com.microservice.category.mscategory.repository;
+
+import com.microservice.category.mscategory.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Los cambios de la tabla posteriores a {@code seq}, en el orden en que se confirmaron.
+     */
+    List<OutboxEvent> findByTableNameAndSeqGreaterThanOrderBySeqAscIdAsc(String tableName, Long seq, Pageable pageable);
+
+    /**
+     * Los cambios restantes de una misma transaccion, a partir de {@code id}.
+     */
+    List<OutboxEvent> findByTableNameAndSeqAndIdGreaterThanOrderByIdAsc(String tableName, Long seq, Long id);
+
+    /**
+     * @return el mayor {@code seq} de los cambios de la tabla escritos antes de {@code before}, o null si no hay.
+     */
+    @Query("select max(e.seq) from OutboxEvent e where e.tableName = :tableName and e.createdAt < :before")
+    Long findMaxSeqCreatedBefore(@Param("tableName") String tableName, @Param("before") Instant before);
+
+    /**
+     * Elimina los cambios de la tabla hasta {@code seq} inclusive, sin separar los de una misma transaccion.
+     */
+    @Modifying
+    @Query("delete from OutboxEvent e where e.tableName = :tableName and e.seq <= :seq")
+    int deleteUpToSeq(@Param("tableName") String tableName, @Param("seq") Long seq);
+}
@@ -0,0 +1,270 @@
+package com.microservice.category.mscategory.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microservice.category.mscategory.exception.BadRequestException;
+import com.microservice.category.mscategory.model.Categoria;
+import com.microservice.category.mscategory.model.OutboxEvent;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Readable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Acceso no bloqueante a la tabla categoria, usado solo por la variante reactiva (perfil reactive).
+ *
+ * Los ids se toman de la misma secuencia {@code categoria_seq} que usa Hibernate. Hibernate interpreta
+ * cada valor {@code h} de la secuencia como el bloque de ids {@code [h-49, h]}; aca se usa solo {@code h},
+ * por lo que ambas variantes pueden escribir sobre la misma base sin repetir ids.
+ * Cada escritura incrementa tambien la version de la fila y la de la tabla, y registra el cambio en el outbox
+ * con la version de la tabla como {@code seq}, igual que la variante servlet (ver {@code TableVersionService} y
+ * {@code OutboxService}): las instancias servlet que leen el outbox desalojan de sus caches las escrituras de
+ * esta variante. La fila, la version y el outbox se escriben en una unica transaccion; el id se toma antes,
+ * fuera de ella, como hace Hibernate, por lo que una escritura revertida solo deja un id sin usar.
+ *
+ * El path y la profundidad se calculan a partir del path del padre leido en la misma transaccion, como en
+ * {@code CategoriaServiceImpl}: al cambiar el padre una unica sentencia mueve todo el subarbol.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveCategoriaRepository {
+    private static final String TABLE_NAME = "categoria";
+    private static final String COLUMNS = "id, categoria, parent_id, path, depth, version, last_modified";
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final ObjectMapper objectMapper;
+    private final boolean mysql;
+
+    public ReactiveCategoriaRepository(DatabaseClient databaseClient, TransactionalOperator transactionalOperator,
+                                       ObjectMapper objectMapper, ConnectionFactory connectionFactory) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = transactionalOperator;
+        this.objectMapper = objectMapper;
+        this.mysql = connectionFactory.getMetadata().getName().toLowerCase(Locale.ROOT).contains("mysql");
+    }
+
+    public Mono<Categoria> findById(Long id) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM categoria WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveCategoriaRepository::toCategoria)
+                .one();
+    }
+
+    public Flux<Categoria> findAll() {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM categoria ORDER BY id")
+                .map(ReactiveCategoriaRepository::toCategoria)
+                .all();
+    }
+
+    public Flux<Categoria> findAllAfter(Long after, int limit) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM categoria WHERE id > :after ORDER BY id LIMIT :limit")
+                .bind("after", after == null ? 0L : after)
+                .bind("limit", limit)
+                .map(ReactiveCategoriaRepository::toCategoria)
+                .all();
+    }
+
+    /**
+     * @throws BadRequestException si el padre no existe o la categoria supera la profundidad maxima.
+     */
+    public Mono<Categoria> insert(Categoria categoria) {
+        Instant now = Instant.now();
+        return nextId("categoria_seq").flatMap(id -> placeUnderParent(categoria)
+                .flatMap(placed -> {
+                    DatabaseClient.GenericExecuteSpec insert = databaseClient.sql("INSERT INTO categoria "
+                                    + "(id, categoria, parent_id, path, depth, version, last_modified) "
+                                    + "VALUES (:id, :categoria, :parentId, :path, :depth, 0, :now)")
+                            .bind("id", id)
+                            .bind("categoria", placed.getCategoria())
+                            .bind("path", placed.getPath())
+                            .bind("depth", placed.getDepth())
+                            .bind("now", now);
+                    return bindParentId(insert, placed.getParentId()).fetch().rowsUpdated();
+                })
+                .then(Mono.fromSupplier(() -> {
+                    categoria.setId(id);
+                    categoria.setVersion(0L);
+                    categoria.setLastModified(now);
+                    return categoria;
+                }))
+                .flatMap(saved -> recordChange(OutboxEvent.Operation.SAVE, id, saved, now).thenReturn(saved))
+                .as(transactionalOperator::transactional));
+    }
+
+    /**
+     * Modifica el nombre y el padre de la categoria. Si cambia el padre mueve tambien su subarbol.
+     * Si no cambia nada no se escribe la fila y se mantiene su version.
+     *
+     * @return la categoria modificada, o vacio si no existe.
+     * @throws BadRequestException si el padre no existe, es la misma categoria o una de sus subcategorias,
+     *                             o el subarbol supera la profundidad maxima.
+     */
+    public Mono<Categoria> update(Long id, Categoria categoria) {
+        Instant now = Instant.now();
+        return findById(id)
+                .flatMap(current -> {
+                    if (Objects.equals(current.getParentId(), categoria.getParentId())) {
+                        if (current.getCategoria().equals(categoria.getCategoria()))
+                            return Mono.just(current);
+                        return write(id, categoria.getCategoria(), current.getParentId(), now)
+                                .then(changed(id, now));
+                    }
+                    return placeUnderParent(categoria)
+                            .flatMap(placed -> {
+                                if (placed.getPath().startsWith(current.getSubtreePath()))
+                                    return Mono.error(new BadRequestException("La categoria padre no puede ser la misma categoria ni una de sus subcategorias"));
+                                return write(id, placed.getCategoria(), placed.getParentId(), now)
+                                        .then(moveSubtree(current, placed))
+                                        .then(changed(id, now));
+                            });
+                })
+                .as(transactionalOperator::transactional);
+    }
+
+    /**
+     * @return la cantidad de filas eliminadas, 0 si la categoria no existe.
+     */
+    public Mono<Long> deleteById(Long id) {
+        return databaseClient.sql("DELETE FROM categoria WHERE id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated()
+                .flatMap(rows -> rows > 0
+                        ? recordChange(OutboxEvent.Operation.DELETE, id, null, Instant.now()).thenReturn(rows)
+                        : Mono.just(rows))
+                .as(transactionalOperator::transactional);
+    }
+
+    private Mono<Long> write(Long id, String categoria, Long parentId, Instant now) {
+        DatabaseClient.GenericExecuteSpec update = databaseClient.sql("UPDATE categoria SET categoria = :categoria, "
+                        + "parent_id = :parentId, version = version + 1, last_modified = :now WHERE id = :id")
+                .bind("id", id)
+                .bind("categoria", categoria)
+                .bind("now", now);
+        return bindParentId(update, parentId).fetch().rowsUpdated();
+    }
+
+    private Mono<Categoria> changed(Long id, Instant now) {
+        return findById(id).flatMap(updated -> recordChange(OutboxEvent.Operation.SAVE, id, updated, now).thenReturn(updated));
+    }
+
+    /**
+     * Completa el path y la profundidad de la categoria con el path de su padre.
+     */
+    private Mono<Categoria> placeUnderParent(Categoria categoria) {
+        Mono<String> parentPath = categoria.getParentId() == null
+                ? Mono.just(Categoria.ROOT_PATH)
+                : databaseClient.sql("SELECT path FROM categoria WHERE id = :id")
+                        .bind("id", categoria.getParentId())
+                        .map(row -> row.get("path", String.class))
+                        .one()
+                        .switchIfEmpty(Mono.error(() -> new BadRequestException("No se encontro la categoria padre con el id: " + categoria.getParentId())));
+        return parentPath.flatMap(path -> {
+            categoria.placeUnder(categoria.getParentId(), path);
+            if (categoria.getPath().length() > Categoria.MAX_PATH_LENGTH)
+                return Mono.error(new BadRequestException("La categoria supera la profundidad maxima del arbol"));
+            return Mono.just(categoria);
+        });
+    }
+
+    /**
+     * Reemplaza el path anterior de la categoria y de todos sus descendientes por el nuevo, con la misma
+     * sentencia que {@code CategoriaRepository#moveSubtree}.
+     */
+    private Mono<Long> moveSubtree(Categoria current, Categoria placed) {
+        return databaseClient.sql("UPDATE categoria SET path = CONCAT(:newPath, SUBSTRING(path, :oldPathLength + 1)), "
+                        + "depth = depth + :depthDelta WHERE id = :id OR path LIKE :pattern")
+                .bind("newPath", placed.getPath())
+                .bind("oldPathLength", current.getPath().length())
+                .bind("depthDelta", placed.getDepth() - current.getDepth())
+                .bind("id", current.getId())
+                .bind("pattern", current.getSubtreePath() + "%")
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindParentId(DatabaseClient.GenericExecuteSpec spec, Long parentId) {
+        return parentId == null ? spec.bindNull("parentId", Long.class) : spec.bind("parentId", parentId);
+    }
+
+    /**
+     * Incrementa la version de la tabla y escribe el cambio en el outbox con esa version como {@code seq}.
+     * El UPDATE bloquea la fila de la version hasta el commit, por lo que las versiones se confirman en orden
+     * creciente. La fila la crea el esquema (db/reactive), asi que dos primeras escrituras no compiten por insertarla.
+     */
+    private Mono<Void> recordChange(OutboxEvent.Operation operation, Long entityId, Categoria entity, Instant now) {
+        String payload = entity == null ? null : toJson(entity);
+        return databaseClient.sql("UPDATE table_version SET version = version + 1, last_modified = :now WHERE table_name = :table")
+                .bind("now", now)
+                .bind("table", TABLE_NAME)
+                .fetch()
+                .rowsUpdated()
+                .flatMap(rows -> rows > 0
+                        ? Mono.just(rows)
+                        : Mono.error(new IllegalStateException("No existe la version de la tabla " + TABLE_NAME)))
+                .then(databaseClient.sql("SELECT version FROM table_version WHERE table_name = :table")
+                        .bind("table", TABLE_NAME)
+                        .map(row -> row.get(0, Long.class))
+                        .one())
+                // Las sentencias de la transaccion comparten la conexion: se ejecutan de a una
+                .flatMap(seq -> nextId("outbox_event_seq").flatMap(id -> {
+                    DatabaseClient.GenericExecuteSpec insert = databaseClient.sql("INSERT INTO outbox_event "
+                                    + "(id, seq, table_name, operation, entity_id, payload, created_at) "
+                                    + "VALUES (:id, :seq, :table, :operation, :entityId, :payload, :now)")
+                            .bind("id", id)
+                            .bind("seq", seq)
+                            .bind("table", TABLE_NAME)
+                            .bind("operation", operation.name())
+                            .bind("entityId", entityId)
+                            .bind("now", now);
+                    insert = payload == null ? insert.bindNull("payload", String.class) : insert.bind("payload", payload);
+                    return insert.fetch().rowsUpdated();
+                }))
+                .then();
+    }
+
+    private Mono<Long> nextId(String sequence) {
+        if (!mysql) {
+            return databaseClient.sql("SELECT NEXT VALUE FOR " + sequence)
+                    .map(row -> row.get(0, Long.class))
+                    .one();
+        }
+        // En MySQL la secuencia es una tabla: LAST_INSERT_ID(expr) deja el valor en la conexion,
+        // por lo que ambas sentencias tienen que ejecutarse sobre la misma.
+        return databaseClient.inConnection(connection -> Mono.from(connection
+                        .createStatement("UPDATE " + sequence + " SET next_val = LAST_INSERT_ID(next_val + 50)")
+                        .execute())
+                .flatMap(result -> Mono.from(result.getRowsUpdated()))
+                .then(Mono.from(connection.createStatement("SELECT LAST_INSERT_ID() - 50").execute()))
+                .flatMap(result -> Mono.from(result.map(row -> row.get(0, Long.class)))));
+    }
+
+    private String toJson(Categoria categoria) {
+        try {
+            return objectMapper.writeValueAsString(categoria);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Categoria toCategoria(Readable row) {
+        Categoria categoria = new Categoria(row.get("categoria", String.class));
+        categoria.setId(row.get("id", Long.class));
+        categoria.setParentId(row.get("parent_id", Long.class));
+        categoria.setPath(row.get("path", String.class));
+        categoria.setDepth(row.get("depth", Integer.class));
+        categoria.setVersion(row.get("version", Long.class));
+        categoria.setLastModified(row.get("last_modified", Instant.class));
+        return categoria;
+    }
+}
@@ -0,0 +1,22 @@
+package com.microservice.category.mscategory.repository;
+
+import com.microservice.category.mscategory.model.TableVersion;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface TableVersionRepository extends JpaRepository<TableVersion, String> {
+
+    /**
+     * Lee la version de la tabla bloqueando su fila hasta el fin de la transaccion (SELECT ... FOR UPDATE).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from TableVersion t where t.tableName = :tableName")
+    Optional<TableVersion> findForUpdate(@Param("tableName") String tableName);
+}
@@ -1,15 +1,28 @@
 package com.microservice.category.mscategory.service;
 
+import com.microservice.category.mscategory.dto.BulkResult;
 import com.microservice.category.mscategory.model.Base;
+import com.microservice.category.mscategory.model.TableVersion;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BaseService <E extends Base, ID extends Serializable> {
     List<E> findAll() throws Exception;
-    E findById(ID id) throws Exception;
+    List<E> findAllAfter(ID after, int limit) throws Exception;
+    List<Map<String, Object>> findAllAfter(ID after, Integer limit, Collection<String> fields) throws Exception;
+    void forEach(Consumer<E> action) throws Exception;
+    Optional<E> findById(ID id) throws Exception;
     E save(E entity) throws Exception;
-    E update(ID id, E entity) throws Exception;
-    boolean delete(ID id) throws Exception;
+    Optional<E> update(ID id, E entity) throws Exception;
+    int deleteById(ID id) throws Exception;
+    List<BulkResult<E>> saveAll(List<E> entities) throws Exception;
+    List<BulkResult<E>> updateAll(List<E> entities) throws Exception;
+    List<BulkResult<E>> deleteAllById(List<ID> ids) throws Exception;
+    TableVersion getTableVersion() throws Exception;
 
 }
@@ -1,159 +1,572 @@
 package com.microservice.category.mscategory.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microservice.category.mscategory.config.MetricsConfiguration;
+import com.microservice.category.mscategory.dto.BulkResult;
+import com.microservice.category.mscategory.exception.ApiException;
+import com.microservice.category.mscategory.exception.BadRequestException;
+import com.microservice.category.mscategory.exception.ConflictException;
+import com.microservice.category.mscategory.exception.ServiceException;
 import com.microservice.category.mscategory.model.Base;
-import com.microservice.category.mscategory.model.Categoria;
+import com.microservice.category.mscategory.model.TableVersion;
 import com.microservice.category.mscategory.repository.BaseRepository;
-import com.microservice.category.mscategory.repository.CategoriaRepository;
-import jakarta.transaction.Transactional;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.GenericTypeResolver;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.io.Serializable;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Timed(MetricsConfiguration.SERVICE_INVOCATIONS)
 public abstract class BaseServiceImpl <E extends Base, ID extends Serializable> implements BaseService<E, ID> {
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TableVersionService tableVersionService;
+
     @Autowired
-    private CategoriaRepository CategoriaRepository;
+    private ObjectMapper objectMapper;
 
     protected BaseRepository<E, ID> baseRepository;
 
-    public BaseServiceImpl(BaseRepository<E, ID> baseRepository) {
+    /**
+     * El nombre de la tabla con el que se registra su version (ver {@link TableVersionService}).
+     */
+    protected final String tableName;
+
+    private final Class<E> entityClass;
+
+    // Nombre en el JSON -> atributo de la entidad, de los campos que se pueden pedir con fields
+    private volatile Map<String, String> selectableFields;
+
+    @SuppressWarnings("unchecked")
+    public BaseServiceImpl(BaseRepository<E, ID> baseRepository, String tableName) {
         this.baseRepository = baseRepository;
+        this.tableName = tableName;
+        this.entityClass = (Class<E>) GenericTypeResolver.resolveTypeArguments(getClass(), BaseServiceImpl.class)[0];
+    }
+
+    /**
+     * Crea la fila de la version de la tabla, si no existe, antes de que lleguen las escrituras (ver
+     * {@link TableVersionService#increment(String)}).
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void createTableVersion() {
+        tableVersionService.createIfAbsent(tableName);
+    }
+
+    /**
+     * @return la version actual de la tabla, que cambia con cada escritura.
+     * @throws Exception si ocurre un error al consultar la base de datos.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public TableVersion getTableVersion() throws Exception {
+        try {
+            return tableVersionService.get(tableName);
+        } catch (Exception e) {
+            throw rewrapped("getTableVersion", e);
+        }
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<E> findAll() throws Exception {
         try {
             return baseRepository.findAll();
         } catch (Exception e) {
-            throw new Exception(e.getMessage());
+            throw rewrapped("findAll", e);
+        }
+    }
+
+    /**
+     * Obtiene una pagina del listado ordenado por id a partir de un cursor.
+     *
+     * @param after el id de la ultima entidad de la pagina anterior, o null para la primera pagina.
+     * @param limit la cantidad maxima de entidades a retornar.
+     * @return las entidades con id mayor a {@code after}, ordenadas por id.
+     * @throws Exception si ocurre un error al consultar la base de datos.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<E> findAllAfter(ID after, int limit) throws Exception {
+        try {
+            Pageable pageable = PageRequest.ofSize(limit);
+            if (after == null)
+                return baseRepository.findByOrderByIdAsc(pageable);
+
+            return baseRepository.findByIdGreaterThanOrderByIdAsc(after, pageable);
+        } catch (Exception e) {
+            throw rewrapped("findAllAfter", e);
         }
     }
 
+    /**
+     * Igual que {@link #findAllAfter(Serializable, int)}, pero consulta solo las columnas de los campos pedidos y
+     * retorna cada fila como un mapa campo -> valor, sin crear entidades en el contexto de persistencia.
+     * El id siempre se incluye, primero, ya que es el cursor de la pagina siguiente.
+     *
+     * @param after el id de la ultima entidad de la pagina anterior, o null para la primera pagina.
+     * @param limit la cantidad maxima de filas a retornar, o null para retornar todas.
+     * @param fields los nombres de los campos a incluir, tal como aparecen en el JSON de la entidad.
+     * @return las filas con id mayor a {@code after}, ordenadas por id.
+     * @throws BadRequestException si alguno de los campos no existe.
+     * @throws Exception si ocurre un error al consultar la base de datos.
+     */
     @Override
-    public E findById(ID id) throws Exception {
+    @Transactional(readOnly = true)
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public List<Map<String, Object>> findAllAfter(ID after, Integer limit, Collection<String> fields) throws Exception {
+        Map<String, String> selectable = selectableFields();
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("id");
+        for (String field : fields) {
+            if (!selectable.containsKey(field))
+                throw new BadRequestException("El campo '" + field + "' no existe");
+            selected.add(field);
+        }
+
         try {
-            Optional<E> optional = baseRepository.findById(id);
-            return optional.orElse(null);
+            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Tuple> query = builder.createTupleQuery();
+            Root<E> root = query.from(entityClass);
+            query.multiselect(selected.stream().<Selection<?>>map(field -> root.get(selectable.get(field)).alias(field)).toList());
+            if (after != null)
+                query.where(builder.greaterThan(root.get("id"), (Comparable) after));
+            query.orderBy(builder.asc(root.get("id")));
+
+            TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+            if (limit != null)
+                typedQuery.setMaxResults(limit);
+            return typedQuery.getResultList().stream().map(tuple -> {
+                Map<String, Object> row = new LinkedHashMap<>();
+                selected.forEach(field -> row.put(field, tuple.get(field)));
+                return row;
+            }).toList();
         } catch (Exception e) {
-            throw new Exception(e.getMessage());
+            throw rewrapped("findAllAfter", e);
+        }
+    }
+
+    /**
+     * Los atributos basicos de la entidad que se publican en el JSON, por su nombre en el JSON. Los campos con
+     * {@code @JsonIgnore} (version, last_modified, etc.) no se pueden pedir con fields.
+     */
+    private Map<String, String> selectableFields() {
+        Map<String, String> selectable = selectableFields;
+        if (selectable == null) {
+            Set<String> attributes = entityManager.getMetamodel().entity(entityClass).getSingularAttributes().stream()
+                    .filter(attribute -> attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC)
+                    .map(SingularAttribute::getName)
+                    .collect(Collectors.toSet());
+            Map<String, String> fields = new LinkedHashMap<>();
+            objectMapper.getSerializationConfig().introspect(objectMapper.constructType(entityClass)).findProperties().stream()
+                    .filter(property -> attributes.contains(property.getInternalName()))
+                    .forEach(property -> fields.put(property.getName(), property.getInternalName()));
+            selectable = Map.copyOf(fields);
+            selectableFields = selectable;
+        }
+        return selectable;
+    }
+
+    /**
+     * Recorre todas las entidades ordenadas por id sin cargarlas juntas en memoria.
+     * Cada entidad se desvincula del contexto de persistencia una vez procesada,
+     * por lo que el consumo de memoria no depende del tamaño de la tabla.
+     *
+     * @param action la accion a ejecutar sobre cada entidad.
+     * @throws Exception si ocurre un error al recorrer la tabla.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void forEach(Consumer<E> action) throws Exception {
+        forEach("forEach", baseRepository::streamAllByOrderByIdAsc, action);
+    }
+
+    /**
+     * Igual que {@link #forEach(Consumer)}, recorriendo las entidades que retorna {@code query}.
+     * Debe ejecutarse dentro de una transaccion.
+     */
+    protected void forEach(String operation, Supplier<Stream<E>> query, Consumer<E> action) throws Exception {
+        try (Stream<E> stream = query.get()) {
+            stream.forEach(entity -> {
+                action.accept(entity);
+                entityManager.detach(entity);
+            });
+        } catch (Exception e) {
+            throw rewrapped(operation, e);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<E> findById(ID id) throws Exception {
+        try {
+            return baseRepository.findById(id);
+        } catch (Exception e) {
+            throw rewrapped("findById", e);
         }
     }
 
     /**
      * OBSERVACION: PARA PRODUCCION USAR ESTE METODO.
      * Guarda una entidad en la base de datos.
-     * Verifica si ya existe una categoría con el mismo nombre antes de guardarla.
+     * Los nombres duplicados los detecta el indice unico de la tabla al momento del INSERT,
+     * sin una consulta previa que pueda quedar desactualizada bajo concurrencia.
+     * El id recibido se descarta para que el guardado sea siempre un INSERT y no un merge
+     * que consulte la base de datos antes de escribir.
      *
      * @param entity la entidad a guardar.
      * @return la entidad guardada.
-     * @throws DataIntegrityViolationException si ya existe una entidad con los mismos datos en la base de datos.
+     * @throws ConflictException si ya existe una entidad con los mismos datos en la base de datos.
      * @throws Exception si ocurre un error al guardar la entidad.
      */
     @Override
+    @Transactional
     public E save(E entity) throws Exception {
         try {
-            if (entity instanceof Categoria categoria) {
-                Categoria categoriaDB = CategoriaRepository.findByCategoria(categoria.getCategoria());
-                if (categoriaDB != null) {
-                    throw new DataIntegrityViolationException("La categoria ya existe");
-                }
-            }
-            return baseRepository.save(entity);
+            entity.setId(null);
+            entity.setVersion(null);
+            E saved = baseRepository.saveAndFlush(entity);
+            tableVersionService.increment(tableName);
+            return saved;
 
         } catch (DataIntegrityViolationException e) {
-            throw new DataIntegrityViolationException(e.getMessage());
+            if (!isDuplicate(e))
+                throw rewrapped("save", e);
+            throw conflict("save", "La categoria ya existe");
 
         } catch (Exception e) {
-            throw new Exception(e.getMessage());
+            throw rewrapped("save", e);
         }
     }
 
     /**
-     * OBSERVACION: PARA TESTING CON JMETER UTILIZAR ESTE METODO
-     */
-//    @Override
-//    public E save(E entity) throws Exception {
-//        try {
-//            return baseRepository.save(entity);
-//        } catch (Exception e) {
-//            throw new Exception(e.getMessage());
-//        }
-//    }
-
-
-    /**
-     * Actualiza la entidad con el identificador proporcionado con los datos de la entidad proporcionada. Si la entidad ya existe en la base de datos,
-     * lanza una excepción de violación de integridad de datos. Si la entidad no existe en la base de datos, retorna null.
+     * Actualiza la entidad con el identificador proporcionado con los datos de la entidad proporcionada. Si otra entidad ya tiene los mismos datos,
+     * el indice unico rechaza el UPDATE y se lanza una excepción de violación de integridad de datos. Si la entidad no existe en la base de datos, retorna un Optional vacío.
+     * La entidad se lee una sola vez: el merge posterior la encuentra en el contexto de persistencia y no vuelve a consultarla.
      *
      * @param id el identificador de la entidad que se desea actualizar
      * @param entity la entidad con los datos actualizados
-     * @return la entidad actualizada si se pudo actualizar exitosamente, o null si la entidad no existe en la base de datos
-     * @throws DataIntegrityViolationException si ya existe una entidad con los mismos datos en la base de datos.
+     * @return la entidad actualizada, o un Optional vacío si la entidad no existe en la base de datos
+     * @throws ConflictException si ya existe una entidad con los mismos datos en la base de datos.
      * @throws Exception si ocurre un error durante la actualización de la entidad o si ya existe otra entidad con los mismos datos en la base de datos
      */
     @Override
     @Transactional
-    public E update(ID id, E entity) throws Exception {
+    public Optional<E> update(ID id, E entity) throws Exception {
         try {
             Optional<E> entityOptional = baseRepository.findById(id);
             if (entityOptional.isPresent()) {
                 E entityToUpdate = entityOptional.get();
-                if (entityToUpdate instanceof Categoria categoriaToUpdate && entity instanceof Categoria categoria) {
-                    Categoria categoriaDB = CategoriaRepository.findByCategoria(categoria.getCategoria());
-                    if (categoriaDB != null && !categoriaDB.getId().equals(categoriaToUpdate.getId())) {
-                        throw new DataIntegrityViolationException("La categoría ya existe");
-                    }
-                }
-
                 Long categoryId = entityToUpdate.getId();
                 entity.setId(categoryId);
-                return baseRepository.save(entity);
+                copyState(entityToUpdate, entity);
+                E updated = baseRepository.saveAndFlush(entity);
+                tableVersionService.increment(tableName);
+                return Optional.of(updated);
             }
-            return null;
+            return Optional.empty();
 
         } catch (DataIntegrityViolationException e) {
-            throw new DataIntegrityViolationException(e.getMessage());
+            if (!isDuplicate(e))
+                throw rewrapped("update", e);
+            throw conflict("update", "La categoría ya existe");
+
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw conflict("update", "La categoría fue modificada por otra solicitud");
 
         } catch (Exception e) {
-            throw new Exception(e.getMessage());
+            throw rewrapped("update", e);
         }
     }
 
     /**
-     * OBSERVACION: PARA TESTING CON JMETER UTILIZAR ESTE METODO
+     * Elimina la entidad con el identificador proporcionado con una unica sentencia DELETE.
+     *
+     * @param id el identificador de la entidad que se desea eliminar
+     * @return la cantidad de filas eliminadas, 0 si la entidad no existe en la base de datos
+     * @throws ConflictException si otras entidades dependen de ella (por ejemplo, sus subcategorias).
+     * @throws Exception si ocurre un error al eliminar la entidad
      */
-//    @Override
-//    @Transactional
-//    public E update(ID id, E entity) throws Exception {
-//        try {
-//            Optional <E> entityOptional = baseRepository.findById(id);
-//            E account = entityOptional.get();
-//
-//            account = baseRepository.save(entity);
-//            return account;
-//        }catch (Exception e){
-//            throw new Exception(e.getMessage());
-//        }
-//    }
+    @Override
+    @Transactional
+    public int deleteById(ID id) throws Exception {
+        try {
+            int deleted = baseRepository.deleteOneById(id);
+            if (deleted > 0)
+                tableVersionService.increment(tableName);
+            return deleted;
+        } catch (DataIntegrityViolationException e) {
+            if (!hasDependents(e))
+                throw rewrapped("deleteById", e);
+            throw conflict("deleteById", "La categoria tiene subcategorias");
+        } catch (Exception e) {
+            throw rewrapped("deleteById", e);
+        }
+    }
 
+    /**
+     * Guarda varias entidades en una sola transaccion. Los INSERT se envian en lotes JDBC
+     * ({@code hibernate.jdbc.batch_size}) y los duplicados se detectan con una unica consulta
+     * antes de escribir (ver {@link #findConflicts(List)}).
+     *
+     * @param entities las entidades a guardar.
+     * @return un resultado por entidad, en el mismo orden: 200 con la entidad guardada o 409 si es un duplicado.
+     * @throws ConflictException si otra solicitud guardo un duplicado al mismo tiempo; no se guarda ninguna entidad.
+     * @throws Exception si ocurre un error al guardar las entidades.
+     */
+    @Override
+    @Transactional
+    public List<BulkResult<E>> saveAll(List<E> entities) throws Exception {
+        try {
+            entities.forEach(entity -> {
+                entity.setId(null);
+                entity.setVersion(null);
+            });
+            List<BulkResult<E>> results = new ArrayList<>(Collections.nCopies(entities.size(), null));
+            Map<Integer, String> conflicts = findConflicts(entities);
+            countConflicts("saveAll", conflicts.size());
+
+            List<E> toSave = new ArrayList<>();
+            List<Integer> positions = new ArrayList<>();
+            for (int i = 0; i < entities.size(); i++) {
+                if (conflicts.containsKey(i)) {
+                    results.set(i, BulkResult.of(HttpStatus.CONFLICT, conflicts.get(i)));
+                } else {
+                    toSave.add(entities.get(i));
+                    positions.add(i);
+                }
+            }
+
+            List<E> saved = baseRepository.saveAll(toSave);
+            baseRepository.flush();
+            if (!saved.isEmpty())
+                tableVersionService.increment(tableName);
+            for (int i = 0; i < saved.size(); i++)
+                results.set(positions.get(i), BulkResult.ok(saved.get(i)));
 
+            return results;
 
+        } catch (DataIntegrityViolationException e) {
+            if (!isDuplicate(e))
+                throw rewrapped("saveAll", e);
+            throw conflict("saveAll", "La categoria ya existe");
+
+        } catch (Exception e) {
+            throw rewrapped("saveAll", e);
+        }
+    }
+
+    /**
+     * Actualiza varias entidades en una sola transaccion. Las entidades existentes se leen con una
+     * unica consulta por id y los UPDATE se envian en lotes JDBC.
+     *
+     * @param entities las entidades a actualizar, cada una con su id.
+     * @return un resultado por entidad, en el mismo orden: 200 con la entidad actualizada, 404 si no existe o 409 si es un duplicado.
+     * @throws ConflictException si otra solicitud guardo un duplicado al mismo tiempo; no se actualiza ninguna entidad.
+     * @throws Exception si ocurre un error al actualizar las entidades.
+     */
     @Override
     @Transactional
-    public boolean delete(ID id) throws Exception {
+    @SuppressWarnings("unchecked")
+    public List<BulkResult<E>> updateAll(List<E> entities) throws Exception {
         try {
-            Optional<E> entityOptional = baseRepository.findById(id);
-            if (entityOptional.isPresent()) {
-                baseRepository.delete(entityOptional.get());
-                return true;
+            List<ID> ids = entities.stream().map(entity -> (ID) entity.getId()).toList();
+            Map<Long, E> existing = baseRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Base::getId, Function.identity()));
+            List<BulkResult<E>> results = new ArrayList<>(Collections.nCopies(entities.size(), null));
+            Map<Integer, String> conflicts = findConflicts(entities);
+            countConflicts("updateAll", conflicts.size());
+
+            List<E> toSave = new ArrayList<>();
+            List<Integer> positions = new ArrayList<>();
+            for (int i = 0; i < entities.size(); i++) {
+                E entity = entities.get(i);
+                if (!existing.containsKey(entity.getId())) {
+                    results.set(i, BulkResult.of(HttpStatus.NOT_FOUND, "No se encontro la categoria con el id: " + entity.getId()));
+                } else if (conflicts.containsKey(i)) {
+                    results.set(i, BulkResult.of(HttpStatus.CONFLICT, conflicts.get(i)));
+                } else {
+                    copyState(existing.get(entity.getId()), entity);
+                    toSave.add(entity);
+                    positions.add(i);
+                }
             }
-            return false;
+
+            List<E> saved = baseRepository.saveAll(toSave);
+            baseRepository.flush();
+            if (!saved.isEmpty())
+                tableVersionService.increment(tableName);
+            for (int i = 0; i < saved.size(); i++)
+                results.set(positions.get(i), BulkResult.ok(saved.get(i)));
+
+            return results;
+
+        } catch (DataIntegrityViolationException e) {
+            if (!isDuplicate(e))
+                throw rewrapped("updateAll", e);
+            throw conflict("updateAll", "La categoría ya existe");
+
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw conflict("updateAll", "La categoría fue modificada por otra solicitud");
+
+        } catch (Exception e) {
+            throw rewrapped("updateAll", e);
+        }
+    }
+
+    /**
+     * Elimina varias entidades con una consulta por id y un unico DELETE ... IN.
+     *
+     * @param ids los identificadores de las entidades a eliminar.
+     * @return un resultado por id, en el mismo orden: 204 si se elimino o 404 si no existe.
+     * @throws ConflictException si otras entidades dependen de alguna de ellas; no se elimina ninguna.
+     * @throws Exception si ocurre un error al eliminar las entidades.
+     */
+    @Override
+    @Transactional
+    public List<BulkResult<E>> deleteAllById(List<ID> ids) throws Exception {
+        try {
+            Set<Long> existing = baseRepository.findAllById(ids).stream()
+                    .map(Base::getId)
+                    .collect(Collectors.toSet());
+            baseRepository.deleteAllByIdInBatch(ids.stream().filter(existing::contains).distinct().toList());
+            if (!existing.isEmpty())
+                tableVersionService.increment(tableName);
+
+            return ids.stream()
+                    .map(id -> existing.contains(id)
+                            ? BulkResult.<E>of(HttpStatus.NO_CONTENT, null)
+                            : BulkResult.<E>of(HttpStatus.NOT_FOUND, "No se encontro la categoria con el id: " + id))
+                    .toList();
+
+        } catch (DataIntegrityViolationException e) {
+            if (!hasDependents(e))
+                throw rewrapped("deleteAllById", e);
+            throw conflict("deleteAllById", "La categoria tiene subcategorias");
+
         } catch (Exception e) {
-            throw new Exception(e.getMessage());
+            throw rewrapped("deleteAllById", e);
         }
     }
+
+    /**
+     * Busca, para una operacion masiva, las entidades que entrarian en conflicto con datos ya
+     * guardados o con otras entidades de la misma solicitud.
+     *
+     * @param entities las entidades a guardar o actualizar.
+     * @return la posicion de cada entidad en conflicto y el motivo.
+     */
+    protected Map<Integer, String> findConflicts(List<E> entities) {
+        return Map.of();
+    }
+
+    /**
+     * @return si la violacion de integridad la causo un dato duplicado (el indice unico de la entidad). Las demas,
+     * por ejemplo una clave primaria repetida, no son conflictos de la solicitud sino errores inesperados.
+     */
+    protected boolean isDuplicate(DataIntegrityViolationException e) {
+        return false;
+    }
+
+    /**
+     * @return si la violacion de integridad la causo otra entidad que depende de la eliminada.
+     */
+    protected boolean hasDependents(DataIntegrityViolationException e) {
+        return false;
+    }
+
+    /**
+     * @return si la violacion de integridad es la de la restriccion o indice con ese nombre. Se busca el nombre que
+     * extrae Hibernate y, si no pudo extraerlo, el mensaje del driver: H2 y MySQL incluyen el nombre del indice
+     * con prefijos propios ("PUBLIC.", "categoria.") y en distinto caso.
+     */
+    protected static boolean violates(DataIntegrityViolationException e, String constraint) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            String name = cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null
+                    ? violation.getConstraintName()
+                    : cause.getMessage();
+            if (name != null && name.toLowerCase(Locale.ROOT).contains(constraint))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Copia la version leida de la base de datos a la entidad recibida, para que el merge la trate
+     * como una modificacion de la fila existente y solo incremente la version si hay cambios.
+     * Las subclases copian tambien el estado que no llega en la solicitud.
+     */
+    protected void copyState(E from, E to) {
+        to.setVersion(from.getVersion());
+        to.setLastModified(from.getLastModified());
+    }
+
+    /**
+     * Registra el conflicto en {@code service.conflicts} y arma la excepcion que recibe el controller.
+     */
+    protected ConflictException conflict(String operation, String message) {
+        countConflicts(operation, 1);
+        return new ConflictException(message);
+    }
+
+    /**
+     * Registra la excepcion original en {@code service.exceptions.rewrapped} y la envuelve en una
+     * {@link ServiceException}. Las {@link ApiException} (por ejemplo un conflicto detectado en una
+     * operacion anidada) se propagan sin cambios.
+     */
+    protected ApiException rewrapped(String operation, Exception e) {
+        if (e instanceof ApiException apiException)
+            return apiException;
+
+        meterRegistry.counter(MetricsConfiguration.SERVICE_EXCEPTIONS_REWRAPPED,
+                "operation", operation, "exception", e.getClass().getSimpleName()).increment();
+        return new ServiceException(e.getMessage(), e);
+    }
+
+    private void countConflicts(String operation, int count) {
+        if (count > 0)
+            meterRegistry.counter(MetricsConfiguration.SERVICE_CONFLICTS, "operation", operation).increment(count);
+    }
 }
@@ -0,0 +1,59 @@
+package com.microservice.category.mscategory.service;
+
+import com.microservice.category.mscategory.config.CacheConfiguration;
+import com.microservice.category.mscategory.config.MetricsConfiguration;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Mantiene las caches en memoria de esta instancia (las de {@link CacheConfiguration} y {@link CategoriaSearchIndex})
+ * al dia con las escrituras confirmadas en las demas, que recibe por el {@link CategoriaInvalidationBus}.
+ *
+ * De cada categoria modificada o eliminada se desaloja solo su entrada por id; la cache por nombre se vacia
+ * completa porque el cambio no incluye el nombre anterior. Las copias en cache de los descendientes de una
+ * categoria movida conservan su path anterior, que {@link CategoriaServiceImpl#findAncestors} detecta.
+ * Los duplicados los sigue resolviendo el indice unico de la base de datos, por lo que una instancia
+ * desactualizada no puede guardar un nombre repetido.
+ */
+@Component
+@Profile("!reactive")
+public class CategoriaCacheCoherence {
+    private final CategoriaInvalidationBus bus;
+    private final CacheManager cacheManager;
+    private final CategoriaSearchIndex searchIndex;
+    private final Counter receivedChanges;
+
+    public CategoriaCacheCoherence(CategoriaInvalidationBus bus, CacheManager cacheManager, CategoriaSearchIndex searchIndex,
+                                   MeterRegistry meterRegistry) {
+        this.bus = bus;
+        this.cacheManager = cacheManager;
+        this.searchIndex = searchIndex;
+        this.receivedChanges = meterRegistry.counter(MetricsConfiguration.CACHE_INVALIDATIONS);
+        bus.subscribe(this::onRemoteChange);
+    }
+
+    @TransactionalEventListener
+    public void afterCommit(CategoriaChangedEvent event) {
+        if (!event.saved().isEmpty() || !event.deleted().isEmpty())
+            bus.publish(event);
+    }
+
+    void onRemoteChange(CategoriaChangedEvent event) {
+        Cache categoriasPorId = cacheManager.getCache(CacheConfiguration.CATEGORIAS_POR_ID);
+        if (categoriasPorId != null) {
+            event.saved().forEach(categoria -> categoriasPorId.evict(categoria.getId()));
+            event.deleted().forEach(categoriasPorId::evict);
+        }
+        Cache categoriasPorNombre = cacheManager.getCache(CacheConfiguration.CATEGORIAS_POR_NOMBRE);
+        if (categoriasPorNombre != null)
+            categoriasPorNombre.clear();
+
+        searchIndex.onChange(event);
+        receivedChanges.increment();
+    }
+}
@@ -0,0 +1,20 @@
+package com.microservice.category.mscategory.service;
+
+import com.microservice.category.mscategory.model.Categoria;
+
+import java.util.List;
+
+/**
+ * Categorias dadas de alta o modificadas, e ids eliminados, por una escritura del servicio.
+ * Se publica dentro de la transaccion de la escritura.
+ */
+public record CategoriaChangedEvent(List<Categoria> saved, List<Long> deleted) {
+
+    public static CategoriaChangedEvent saved(List<Categoria> categorias) {
+        return new CategoriaChangedEvent(categorias, List.of());
+    }
+
+    public static CategoriaChangedEvent deleted(List<Long> ids) {
+        return new CategoriaChangedEvent(List.of(), ids);
+    }
+}
@@ -0,0 +1,26 @@
+package com.microservice.category.mscategory.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Transporte de los cambios de categorias entre las instancias del servicio, para que cada una invalide sus
+ * caches en memoria (ver {@link CategoriaCacheCoherence}). La implementacion se elige con
+ * {@code cache.invalidation.transport} (ver {@code CacheInvalidationConfiguration}).
+ */
+public interface CategoriaInvalidationBus extends AutoCloseable {
+
+    /**
+     * Envia a las demas instancias un cambio ya confirmado en esta.
+     */
+    void publish(CategoriaChangedEvent event);
+
+    /**
+     * Registra un receptor de los cambios confirmados en las demas instancias. Puede recibir tambien los de
+     * esta instancia, por lo que aplicar un cambio dos veces no debe tener efecto.
+     */
+    void subscribe(Consumer<CategoriaChangedEvent> listener);
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,118 @@
+package com.microservice.category.mscategory.service;
+
+import com.microservice.category.mscategory.model.Categoria;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Indice en memoria de los nombres de las categorias para la busqueda por prefijo.
+ *
+ * Los nombres se normalizan (minusculas y sin tildes ni diéresis, "Árbol" y "arbol" son iguales) y se
+ * guardan ordenados, por lo que un prefijo se resuelve como un rango del mapa sin consultar la base de datos.
+ * El indice se arma al iniciar la aplicacion y se actualiza con cada {@link CategoriaChangedEvent}
+ * una vez confirmada la transaccion que lo publico.
+ */
+@Component
+@Profile("!reactive")
+public class CategoriaSearchIndex {
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final CategoriaService categoriaService;
+
+    // Clave: nombre normalizado + '\0' + id, para admitir nombres distintos que se normalizan igual
+    private volatile NavigableMap<String, Categoria> entries = new ConcurrentSkipListMap<>();
+    private volatile Map<Long, String> keysById = new ConcurrentHashMap<>();
+
+    // Serializa las escrituras sobre el indice; las busquedas no lo toman
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public CategoriaSearchIndex(CategoriaService categoriaService) {
+        this.categoriaService = categoriaService;
+    }
+
+    /**
+     * Vuelve a armar el indice a partir de la tabla completa.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() throws Exception {
+        lock.lock();
+        try {
+            NavigableMap<String, Categoria> newEntries = new ConcurrentSkipListMap<>();
+            Map<Long, String> newKeysById = new ConcurrentHashMap<>();
+            categoriaService.forEach(categoria -> {
+                String key = key(categoria);
+                newEntries.put(key, copy(categoria));
+                newKeysById.put(categoria.getId(), key);
+            });
+            entries = newEntries;
+            keysById = newKeysById;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(CategoriaChangedEvent event) {
+        lock.lock();
+        try {
+            event.deleted().forEach(this::remove);
+            for (Categoria categoria : event.saved()) {
+                remove(categoria.getId());
+                String key = key(categoria);
+                entries.put(key, copy(categoria));
+                keysById.put(categoria.getId(), key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param prefix el prefijo a buscar; se normaliza igual que los nombres.
+     * @param limit la cantidad maxima de resultados.
+     * @return las categorias cuyo nombre empieza con el prefijo, ordenadas por nombre normalizado.
+     */
+    public List<Categoria> search(String prefix, int limit) {
+        String from = normalize(prefix);
+        return entries.tailMap(from, true).entrySet().stream()
+                .takeWhile(entry -> entry.getKey().startsWith(from))
+                .limit(limit)
+                .map(Map.Entry::getValue)
+                .toList();
+    }
+
+    public static String normalize(String value) {
+        String decomposed = Normalizer.normalize(value.strip(), Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private void remove(Long id) {
+        String key = keysById.remove(id);
+        if (key != null)
+            entries.remove(key);
+    }
+
+    private static String key(Categoria categoria) {
+        return normalize(categoria.getCategoria()) + '\0' + categoria.getId();
+    }
+
+    private static Categoria copy(Categoria categoria) {
+        Categoria copy = new Categoria(categoria.getCategoria());
+        copy.setId(categoria.getId());
+        copy.setParentId(categoria.getParentId());
+        return copy;
+    }
+}
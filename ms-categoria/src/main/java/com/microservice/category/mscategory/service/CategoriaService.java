@@ -2,7 +2,15 @@ package com.microservice.category.mscategory.service;
 
 import com.microservice.category.mscategory.model.Categoria;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 
 public interface CategoriaService extends BaseService<Categoria, Long> {
 
+    Optional<Categoria> findByCategoria(String categoria) throws Exception;
+    List<Categoria> findByCategoriaIn(Collection<String> categorias) throws Exception;
+    List<Categoria> findDescendants(Categoria categoria, Integer maxDepth) throws Exception;
+    List<Categoria> findAncestors(Categoria categoria) throws Exception;
 }
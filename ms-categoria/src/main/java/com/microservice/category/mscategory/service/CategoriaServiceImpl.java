@@ -1,12 +1,365 @@
 package com.microservice.category.mscategory.service;
 
+import com.microservice.category.mscategory.config.CacheConfiguration;
+import com.microservice.category.mscategory.config.MetricsConfiguration;
+import com.microservice.category.mscategory.config.ReadWriteRoutingDataSource;
+import com.microservice.category.mscategory.dto.BulkResult;
+import com.microservice.category.mscategory.exception.BadRequestException;
 import com.microservice.category.mscategory.model.Categoria;
-import com.microservice.category.mscategory.repository.BaseRepository;
+import com.microservice.category.mscategory.repository.CategoriaRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.Hibernate;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
+@Profile("!reactive")
+@Timed(MetricsConfiguration.SERVICE_INVOCATIONS)
 public class CategoriaServiceImpl extends BaseServiceImpl<Categoria, Long> implements CategoriaService {
-    public CategoriaServiceImpl(BaseRepository<Categoria, Long> baseRepository) {
-        super(baseRepository);
+    private final CategoriaRepository categoriaRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SingleFlight<Long, Optional<Categoria>> findByIdFlights;
+    private final SingleFlight<String, Optional<Categoria>> findByCategoriaFlights;
+
+    public CategoriaServiceImpl(CategoriaRepository categoriaRepository, ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
+        super(categoriaRepository, "categoria");
+        this.categoriaRepository = categoriaRepository;
+        this.eventPublisher = eventPublisher;
+        this.findByIdFlights = new SingleFlight<>(meterRegistry.counter(MetricsConfiguration.SERVICE_COALESCED, "operation", "findById"));
+        this.findByCategoriaFlights = new SingleFlight<>(meterRegistry.counter(MetricsConfiguration.SERVICE_COALESCED, "operation", "findByCategoria"));
+    }
+
+    /**
+     * Las busquedas concurrentes del mismo id que no encuentran la categoria en la cache comparten una unica
+     * consulta (ver {@link SingleFlight}). La consulta abre su propia transaccion de solo lectura, por lo que las
+     * solicitudes que esperan su resultado no retienen una conexion del pool. Como su resultado queda en la cache,
+     * se lee del primario aunque haya una replica (ver {@link ReadWriteRoutingDataSource#onPrimary}).
+     */
+    @Override
+    @Cacheable(cacheNames = CacheConfiguration.CATEGORIAS_POR_ID, unless = "#result == null")
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<Categoria> findById(Long id) throws Exception {
+        // Dentro de una transaccion la consulta tiene que ver sus propios cambios, por lo que no se comparte
+        if (TransactionSynchronizationManager.isActualTransactionActive())
+            return super.findById(id);
+        return findByIdFlights.execute(id, () -> ReadWriteRoutingDataSource.onPrimary(() -> super.findById(id)));
+    }
+
+    /**
+     * Busca una categoria por nombre; igual que {@link #findById(Long)}, las busquedas concurrentes del mismo
+     * nombre comparten una unica consulta, que se lee del primario.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<Categoria> findByCategoria(String categoria) throws Exception {
+        try {
+            if (TransactionSynchronizationManager.isActualTransactionActive())
+                return Optional.ofNullable(categoriaRepository.findByCategoria(categoria));
+            return findByCategoriaFlights.execute(categoria,
+                    () -> ReadWriteRoutingDataSource.onPrimary(() -> Optional.ofNullable(categoriaRepository.findByCategoria(categoria))));
+        } catch (Exception e) {
+            throw rewrapped("findByCategoria", e);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Categoria> findByCategoriaIn(Collection<String> categorias) throws Exception {
+        try {
+            return categoriaRepository.findByCategoriaIn(categorias);
+        } catch (Exception e) {
+            throw rewrapped("findByCategoriaIn", e);
+        }
+    }
+
+    /**
+     * Busca los descendientes de una categoria con una unica consulta sobre un rango del indice del path.
+     * Si la categoria viene de la cache y uno de sus ancestros se movio despues, su path ya no es el prefijo de
+     * ningun descendiente (el subarbol se mueve con una unica sentencia) y la consulta no retorna filas; solo en
+     * ese caso se lee el path actual y, si cambio, se vuelve a consultar.
+     *
+     * @param categoria la categoria, tal como la retorna {@link #findById(Long)}.
+     * @param maxDepth la cantidad de niveles debajo de la categoria a incluir (1 = sus hijas), o null para todos.
+     * @return los descendientes, cada uno despues de su padre.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Categoria> findDescendants(Categoria categoria, Integer maxDepth) throws Exception {
+        try {
+            List<Categoria> descendants = findDescendants(categoria.getPath(), categoria.getId(), maxDepth);
+            if (!descendants.isEmpty())
+                return descendants;
+
+            String path = categoriaRepository.findPathById(categoria.getId());
+            if (path == null || path.equals(categoria.getPath()))
+                return descendants;
+            return findDescendants(path, categoria.getId(), maxDepth);
+        } catch (Exception e) {
+            throw rewrapped("findDescendants", e);
+        }
+    }
+
+    private List<Categoria> findDescendants(String path, Long id, Integer maxDepth) {
+        String subtreePath = path + id + "/";
+        if (maxDepth == null)
+            return categoriaRepository.findByPathStartingWithOrderByPathAscIdAsc(subtreePath);
+        return categoriaRepository.findByPathStartingWithAndDepthLessThanEqualOrderByPathAscIdAsc(
+                subtreePath, Categoria.depthOf(path) + maxDepth);
+    }
+
+    /**
+     * Busca los ancestros de una categoria por los ids de su path, con una unica consulta por clave primaria.
+     * Si la categoria viene de la cache y uno de sus ancestros se movio despues (en esta u otra instancia), su
+     * path ya no coincide con la cadena de padres leida; en ese caso se vuelve a consultar con el path actual.
+     *
+     * @param categoria la categoria, tal como la retorna {@link #findById(Long)}.
+     * @return los ancestros, desde la raiz hasta el padre; vacio si la categoria es una raiz.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Categoria> findAncestors(Categoria categoria) throws Exception {
+        try {
+            if (categoria.getParentId() == null)
+                return List.of();
+            List<Categoria> ancestors = categoriaRepository.findByIdInOrderByDepthAsc(categoria.getAncestorIds());
+            if (isChainOf(ancestors, categoria))
+                return ancestors;
+
+            String path = categoriaRepository.findPathById(categoria.getId());
+            // La categoria se elimino despues de leerla de la cache
+            if (path == null)
+                return List.of();
+            // La primera consulta cargo la cadena anterior: cada categoria tiene un proxy de su padre (la relacion
+            // de la clave foranea) en el contexto de persistencia, que la consulta retorna en lugar de la entidad
+            return categoriaRepository.findByIdInOrderByDepthAsc(Categoria.ancestorIdsOf(path)).stream()
+                    .map(ancestor -> (Categoria) Hibernate.unproxy(ancestor))
+                    .toList();
+        } catch (Exception e) {
+            throw rewrapped("findAncestors", e);
+        }
+    }
+
+    /**
+     * Igual que {@link #forEach(Consumer)}, recorriendo las categorias ordenadas por path: cada categoria
+     * aparece despues de su padre.
+     */
+    @Transactional(readOnly = true)
+    public void forEachInTreeOrder(Consumer<Categoria> action) throws Exception {
+        forEach("forEachInTreeOrder", categoriaRepository::streamAllByOrderByPathAscIdAsc, action);
+    }
+
+    @Override
+    @Caching(
+            put = @CachePut(cacheNames = CacheConfiguration.CATEGORIAS_POR_ID, key = "#result.id"),
+            evict = @CacheEvict(cacheNames = CacheConfiguration.CATEGORIAS_POR_NOMBRE, allEntries = true)
+    )
+    @Transactional
+    public Categoria save(Categoria entity) throws Exception {
+        placeUnderParents(List.of(entity));
+        Categoria saved = super.save(entity);
+        eventPublisher.publishEvent(CategoriaChangedEvent.saved(List.of(saved)));
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    @Caching(
+            put = @CachePut(cacheNames = CacheConfiguration.CATEGORIAS_POR_ID, key = "#id", unless = "#result == null"),
+            evict = @CacheEvict(cacheNames = CacheConfiguration.CATEGORIAS_POR_NOMBRE, allEntries = true)
+    )
+    public Optional<Categoria> update(Long id, Categoria entity) throws Exception {
+        Optional<Categoria> updated = super.update(id, entity);
+        updated.ifPresent(categoria -> eventPublisher.publishEvent(CategoriaChangedEvent.saved(List.of(categoria))));
+        return updated;
+    }
+
+    @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfiguration.CATEGORIAS_POR_ID, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfiguration.CATEGORIAS_POR_NOMBRE, allEntries = true)
+    })
+    public int deleteById(Long id) throws Exception {
+        int deleted = super.deleteById(id);
+        if (deleted > 0)
+            eventPublisher.publishEvent(CategoriaChangedEvent.deleted(List.of(id)));
+        return deleted;
+    }
+
+    @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfiguration.CATEGORIAS_POR_ID, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfiguration.CATEGORIAS_POR_NOMBRE, allEntries = true)
+    })
+    public List<BulkResult<Categoria>> saveAll(List<Categoria> entities) throws Exception {
+        placeUnderParents(entities);
+        List<BulkResult<Categoria>> results = super.saveAll(entities);
+        eventPublisher.publishEvent(CategoriaChangedEvent.saved(savedEntities(results)));
+        return results;
+    }
+
+    @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfiguration.CATEGORIAS_POR_ID, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfiguration.CATEGORIAS_POR_NOMBRE, allEntries = true)
+    })
+    public List<BulkResult<Categoria>> updateAll(List<Categoria> entities) throws Exception {
+        List<BulkResult<Categoria>> results = super.updateAll(entities);
+        eventPublisher.publishEvent(CategoriaChangedEvent.saved(savedEntities(results)));
+        return results;
+    }
+
+    @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfiguration.CATEGORIAS_POR_ID, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfiguration.CATEGORIAS_POR_NOMBRE, allEntries = true)
+    })
+    public List<BulkResult<Categoria>> deleteAllById(List<Long> ids) throws Exception {
+        List<BulkResult<Categoria>> results = super.deleteAllById(ids);
+        List<Long> deleted = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).getStatus_code() == HttpStatus.NO_CONTENT.value())
+                deleted.add(ids.get(i));
+        }
+        eventPublisher.publishEvent(CategoriaChangedEvent.deleted(deleted));
+        return results;
+    }
+
+    /**
+     * Detecta los nombres repetidos dentro de la solicitud y los que ya pertenecen a otra
+     * categoria, consultando todos los nombres con un unico {@code IN (...)}.
+     */
+    @Override
+    protected Map<Integer, String> findConflicts(List<Categoria> entities) {
+        Set<String> names = entities.stream().map(Categoria::getCategoria).collect(Collectors.toSet());
+        Map<String, Long> existing = categoriaRepository.findByCategoriaIn(names).stream()
+                .collect(Collectors.toMap(Categoria::getCategoria, Categoria::getId));
+
+        Map<Integer, String> conflicts = new HashMap<>();
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < entities.size(); i++) {
+            Categoria categoria = entities.get(i);
+            Long existingId = existing.get(categoria.getCategoria());
+            if (!seen.add(categoria.getCategoria()))
+                conflicts.put(i, "La categoria esta repetida en la solicitud");
+            else if (existingId != null && !existingId.equals(categoria.getId()))
+                conflicts.put(i, "La categoria ya existe");
+        }
+        return conflicts;
+    }
+
+    @Override
+    protected boolean isDuplicate(DataIntegrityViolationException e) {
+        return violates(e, Categoria.UNIQUE_NAME);
+    }
+
+    @Override
+    protected boolean hasDependents(DataIntegrityViolationException e) {
+        return violates(e, Categoria.PARENT_FOREIGN_KEY);
+    }
+
+    /**
+     * Conserva la ubicacion leida de la base de datos o, si cambio el padre, mueve la categoria con todo su
+     * subarbol (ver {@link CategoriaRepository#moveSubtree}). Las copias en cache de los descendientes
+     * conservan su path anterior; {@link #findAncestors} y {@link #findDescendants} lo detectan.
+     */
+    @Override
+    protected void copyState(Categoria from, Categoria to) {
+        super.copyState(from, to);
+        if (Objects.equals(from.getParentId(), to.getParentId())) {
+            to.setPath(from.getPath());
+            to.setDepth(from.getDepth());
+            return;
+        }
+
+        // Los paths se leen de la base de datos: otra categoria de la misma solicitud pudo haber movido sus ancestros
+        String oldPath = categoriaRepository.findPathById(to.getId());
+        String parentPath = null;
+        if (to.getParentId() != null) {
+            parentPath = categoriaRepository.findPathById(to.getParentId());
+            if (parentPath == null)
+                throw new BadRequestException("No se encontro la categoria padre con el id: " + to.getParentId());
+            if ((parentPath + to.getParentId() + "/").startsWith(oldPath + to.getId() + "/"))
+                throw new BadRequestException("La categoria padre no puede ser la misma categoria ni una de sus subcategorias");
+        }
+        to.placeUnder(to.getParentId(), parentPath);
+        checkPathLength(to);
+        categoriaRepository.moveSubtree(to.getId(), oldPath + to.getId() + "/%", oldPath, to.getPath(),
+                to.getDepth() - Categoria.depthOf(oldPath));
+    }
+
+    /**
+     * Completa el path y la profundidad de las categorias a dar de alta, leyendo todos sus padres con una
+     * unica consulta.
+     *
+     * @throws BadRequestException si alguno de los padres no existe.
+     */
+    private void placeUnderParents(List<Categoria> categorias) {
+        Set<Long> parentIds = categorias.stream()
+                .map(Categoria::getParentId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, String> parentPaths = parentIds.isEmpty() ? Map.of() : categoriaRepository.findAllById(parentIds).stream()
+                .collect(Collectors.toMap(Categoria::getId, Categoria::getPath));
+
+        for (Categoria categoria : categorias) {
+            Long parentId = categoria.getParentId();
+            if (parentId != null && !parentPaths.containsKey(parentId))
+                throw new BadRequestException("No se encontro la categoria padre con el id: " + parentId);
+            // Map.of() no admite claves null
+            categoria.placeUnder(parentId, parentId == null ? null : parentPaths.get(parentId));
+            checkPathLength(categoria);
+        }
+    }
+
+    /**
+     * @return si {@code ancestors} es la cadena de padres de {@code categoria}, desde una raiz.
+     */
+    private static boolean isChainOf(List<Categoria> ancestors, Categoria categoria) {
+        Long parentId = null;
+        for (Categoria ancestor : ancestors) {
+            if (!Objects.equals(ancestor.getParentId(), parentId))
+                return false;
+            parentId = ancestor.getId();
+        }
+        return Objects.equals(parentId, categoria.getParentId());
+    }
+
+    private static void checkPathLength(Categoria categoria) {
+        if (categoria.getPath().length() > Categoria.MAX_PATH_LENGTH)
+            throw new BadRequestException("La categoria supera la profundidad maxima del arbol");
+    }
+
+    private static List<Categoria> savedEntities(List<BulkResult<Categoria>> results) {
+        return results.stream()
+                .filter(result -> result.getEntity() != null)
+                .map(BulkResult::getEntity)
+                .toList();
     }
 }
@@ -0,0 +1,262 @@
+package com.microservice.category.mscategory.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microservice.category.mscategory.config.MetricsConfiguration;
+import com.microservice.category.mscategory.dto.BulkResult;
+import com.microservice.category.mscategory.dto.SnapshotImportResult;
+import com.microservice.category.mscategory.exception.BadRequestException;
+import com.microservice.category.mscategory.model.Categoria;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.Validator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exporta e importa la tabla categoria completa como NDJSON comprimido con gzip: una categoria
+ * por linea, con el mismo formato que retorna la API. Cada categoria aparece despues de su padre,
+ * por lo que el snapshot se puede importar en una sola pasada.
+ */
+@Service
+@Profile("!reactive")
+public class CategoriaSnapshotService {
+    public static final int IMPORT_BATCH_SIZE = 1000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final CategoriaServiceImpl categoriaService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final Counter importedRows;
+    private final Counter skippedRows;
+
+    public CategoriaSnapshotService(CategoriaServiceImpl categoriaService, ObjectMapper objectMapper, Validator validator,
+                                    MeterRegistry meterRegistry) {
+        this.categoriaService = categoriaService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.importedRows = meterRegistry.counter(MetricsConfiguration.SNAPSHOT_IMPORT_ROWS, "result", "imported");
+        this.skippedRows = meterRegistry.counter(MetricsConfiguration.SNAPSHOT_IMPORT_ROWS, "result", "skipped");
+    }
+
+    /**
+     * Escribe todas las categorias, cada una despues de su padre, a medida que se leen de la base de datos
+     * (ver {@link CategoriaServiceImpl#forEachInTreeOrder}), por lo que el consumo de memoria no depende del
+     * tamaño de la tabla.
+     *
+     * @param outputStream el destino del snapshot; no se cierra.
+     * @return la cantidad de categorias exportadas.
+     * @throws Exception si ocurre un error al leer la tabla o al escribir el snapshot.
+     */
+    public long export(OutputStream outputStream) throws Exception {
+        AtomicLong exported = new AtomicLong();
+        GZIPOutputStream gzip = new GZIPOutputStream(outputStream, BUFFER_SIZE);
+        try (JsonGenerator generator = objectMapper.createGenerator(gzip)) {
+            generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            generator.setRootValueSeparator(null);
+            categoriaService.forEachInTreeOrder(categoria -> {
+                try {
+                    generator.writeObject(categoria);
+                    generator.writeRaw('\n');
+                    exported.incrementAndGet();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        }
+        gzip.finish();
+        return exported.get();
+    }
+
+    /**
+     * Importa un snapshot generado por {@link #export(OutputStream)}, comprimido o no, en transacciones de
+     * {@value #IMPORT_BATCH_SIZE} categorias (ver {@link BaseServiceImpl#saveAll(List)}). Los ids del snapshot
+     * se descartan y las categorias cuyo nombre ya existe se omiten, por lo que importar dos veces el mismo
+     * snapshot no duplica datos. El {@code parent_id} de cada categoria se traduce al id asignado a su padre (o
+     * al de la categoria existente con su nombre, si se omitio); el padre tiene que aparecer antes en el snapshot.
+     * El avance se publica en {@code snapshot.import.rows} a medida que se confirma cada lote.
+     *
+     * Las categorias tienen que estar en el orden de la exportacion, por el path de su padre: a partir de ese
+     * orden solo se recuerdan los ids de las categorias cuyas subcategorias todavia pueden aparecer (ver
+     * {@link ImportedParents}), y no los de todo el snapshot.
+     *
+     * @param inputStream el snapshot; se lee linea por linea, sin cargarlo completo en memoria.
+     * @return la cantidad de categorias importadas y omitidas.
+     * @throws BadRequestException si una linea no es una categoria valida, no respeta el orden de la exportacion
+     * o su padre no aparece antes; los lotes anteriores quedan importados.
+     * @throws Exception si ocurre un error al guardar un lote.
+     */
+    public SnapshotImportResult importSnapshot(InputStream inputStream) throws Exception {
+        SnapshotImportResult result = new SnapshotImportResult(0L, 0L);
+        List<Categoria> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        List<Long> snapshotIds = new ArrayList<>(IMPORT_BATCH_SIZE);
+        // Path en el snapshot de los hijos de cada categoria del lote actual
+        Map<Long, String> pending = new HashMap<>();
+        ImportedParents parents = new ImportedParents();
+        String lastPath = Categoria.ROOT_PATH;
+        try (JsonParser parser = objectMapper.createParser(decompressed(inputStream));
+             MappingIterator<Categoria> categorias = objectMapper.readerFor(Categoria.class).readValues(parser)) {
+            while (categorias.hasNextValue()) {
+                Categoria categoria = categorias.nextValue();
+                int line = parser.currentLocation().getLineNr();
+                validate(categoria, line);
+
+                Long parentId = categoria.getParentId();
+                String path = Categoria.ROOT_PATH;
+                if (parentId != null) {
+                    // El padre esta en el lote actual: se guarda el lote para conocer su id
+                    if (pending.containsKey(parentId)) {
+                        importBatch(batch, snapshotIds, pending, parents, result);
+                        batch.clear();
+                        snapshotIds.clear();
+                        pending.clear();
+                    }
+                    ImportedParent parent = parents.get(parentId);
+                    if (parent == null)
+                        throw new BadRequestException("Linea " + line + ": la categoria padre " + parentId + " no aparece antes en el snapshot");
+                    categoria.setParentId(parent.id());
+                    path = parent.childPath();
+                }
+                if (path.compareTo(lastPath) < 0)
+                    throw new BadRequestException("Linea " + line + ": las categorias no estan en el orden de /categorias/snapshot");
+                lastPath = path;
+                parents.forgetBefore(path);
+
+                batch.add(categoria);
+                snapshotIds.add(categoria.getId());
+                if (categoria.getId() != null)
+                    pending.put(categoria.getId(), path + categoria.getId() + "/");
+                if (batch.size() == IMPORT_BATCH_SIZE) {
+                    importBatch(batch, snapshotIds, pending, parents, result);
+                    batch.clear();
+                    snapshotIds.clear();
+                    pending.clear();
+                }
+            }
+        } catch (JsonProcessingException ex) {
+            throw new BadRequestException("Linea " + ex.getLocation().getLineNr() + ": " + ex.getOriginalMessage());
+        }
+        if (!batch.isEmpty())
+            importBatch(batch, snapshotIds, pending, parents, result);
+
+        return result;
+    }
+
+    private void validate(Categoria categoria, int line) {
+        if (categoria.getCategoria() == null || categoria.getCategoria().isBlank())
+            throw new BadRequestException("Linea " + line + ": la categoria no puede estar vacia");
+
+        validator.validate(categoria).stream()
+                .findFirst()
+                .ifPresent(violation -> {
+                    throw new BadRequestException("Linea " + line + ": " + violation.getPropertyPath() + ": " + violation.getMessage());
+                });
+    }
+
+    private void importBatch(List<Categoria> batch, List<Long> snapshotIds, Map<Long, String> pending, ImportedParents parents,
+                             SnapshotImportResult result) throws Exception {
+        List<BulkResult<Categoria>> saved = categoriaService.saveAll(batch);
+        long imported = 0;
+        Map<String, Long> skipped = new HashMap<>();
+        for (int i = 0; i < saved.size(); i++) {
+            Long snapshotId = snapshotIds.get(i);
+            if (saved.get(i).getStatus_code() == HttpStatus.OK.value()) {
+                imported++;
+                if (snapshotId != null)
+                    parents.put(snapshotId, new ImportedParent(saved.get(i).getEntity().getId(), pending.get(snapshotId)));
+            } else if (snapshotId != null) {
+                skipped.put(batch.get(i).getCategoria(), snapshotId);
+            }
+        }
+        // Las subcategorias de una categoria omitida se importan debajo de la categoria existente con su nombre
+        if (!skipped.isEmpty()) {
+            for (Categoria existing : categoriaService.findByCategoriaIn(skipped.keySet())) {
+                Long snapshotId = skipped.get(existing.getCategoria());
+                parents.put(snapshotId, new ImportedParent(existing.getId(), pending.get(snapshotId)));
+            }
+        }
+
+        long skippedCount = batch.size() - imported;
+        result.setImported(result.getImported() + imported);
+        result.setSkipped(result.getSkipped() + skippedCount);
+        importedRows.increment(imported);
+        skippedRows.increment(skippedCount);
+    }
+
+    /**
+     * Una categoria ya importada u omitida: su id en la tabla y el path, en el snapshot, de sus hijos.
+     */
+    private record ImportedParent(Long id, String childPath) {
+    }
+
+    /**
+     * Las categorias ya importadas que todavia pueden ser el padre de una linea posterior, por su id en el snapshot.
+     *
+     * La exportacion ordena las categorias por el path de su padre, y los paths que empiezan con el de los hijos
+     * de una categoria son contiguos en ese orden: una vez que se lee un path mayor que no empieza con el de sus
+     * hijos, la categoria ya no puede aparecer como padre y se olvida. Quedan los ancestros de la linea actual y
+     * las categorias cuyos hijos todavia no se leyeron.
+     */
+    private static final class ImportedParents {
+        private final Map<Long, ImportedParent> bySnapshotId = new HashMap<>();
+        private final NavigableMap<String, Long> byChildPath = new TreeMap<>();
+
+        ImportedParent get(Long snapshotId) {
+            return bySnapshotId.get(snapshotId);
+        }
+
+        void put(Long snapshotId, ImportedParent parent) {
+            bySnapshotId.put(snapshotId, parent);
+            byChildPath.put(parent.childPath(), snapshotId);
+        }
+
+        /**
+         * Olvida las categorias cuyos hijos tendrian que haber aparecido antes de una linea con este path.
+         */
+        void forgetBefore(String path) {
+            Iterator<Map.Entry<String, Long>> before = byChildPath.headMap(path, false).entrySet().iterator();
+            while (before.hasNext()) {
+                Map.Entry<String, Long> entry = before.next();
+                if (!path.startsWith(entry.getKey())) {
+                    bySnapshotId.remove(entry.getValue());
+                    before.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Detecta la compresion por los dos primeros bytes (la firma de gzip), para aceptar tambien NDJSON plano.
+     */
+    private static InputStream decompressed(InputStream inputStream) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(new BufferedInputStream(inputStream, BUFFER_SIZE), 2);
+        byte[] signature = pushback.readNBytes(2);
+        pushback.unread(signature);
+        boolean gzip = signature.length == 2
+                && (signature[0] & 0xff) == (GZIPInputStream.GZIP_MAGIC & 0xff)
+                && (signature[1] & 0xff) == (GZIPInputStream.GZIP_MAGIC >> 8);
+        return gzip ? new GZIPInputStream(pushback, BUFFER_SIZE) : pushback;
+    }
+}
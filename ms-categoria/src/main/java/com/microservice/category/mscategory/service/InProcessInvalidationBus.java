@@ -0,0 +1,46 @@
+package com.microservice.category.mscategory.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Reemplazo de un transporte real para varias instancias levantadas en la misma JVM (tests y benchmarks):
+ * cada cambio se entrega de inmediato, en el hilo que confirmo la escritura, a las demas instancias del
+ * mismo {@code cache.invalidation.group}.
+ */
+public class InProcessInvalidationBus implements CategoriaInvalidationBus {
+    private static final Map<String, Set<InProcessInvalidationBus>> GROUPS = new ConcurrentHashMap<>();
+
+    private final String group;
+    private final List<Consumer<CategoriaChangedEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    public InProcessInvalidationBus(String group) {
+        this.group = group;
+        GROUPS.computeIfAbsent(group, name -> ConcurrentHashMap.newKeySet()).add(this);
+    }
+
+    @Override
+    public void publish(CategoriaChangedEvent event) {
+        for (InProcessInvalidationBus member : GROUPS.getOrDefault(group, Set.of())) {
+            if (member != this)
+                member.listeners.forEach(listener -> listener.accept(event));
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<CategoriaChangedEvent> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void close() {
+        GROUPS.computeIfPresent(group, (name, members) -> {
+            members.remove(this);
+            return members.isEmpty() ? null : members;
+        });
+    }
+}
@@ -0,0 +1,122 @@
+package com.microservice.category.mscategory.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microservice.category.mscategory.model.Categoria;
+import com.microservice.category.mscategory.model.OutboxEvent;
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Recibe los cambios de las demas instancias leyendo el outbox de la base de datos compartida cada
+ * {@code cache.invalidation.poll-interval}, por lo que no necesita conexiones entre instancias: una
+ * instancia deja de ver un cambio ajeno, como maximo, un intervalo despues de su commit. Esto vale tambien con
+ * una replica de lectura, porque las consultas que vuelven a llenar la cache se ejecutan en el primario (ver
+ * {@link com.microservice.category.mscategory.config.ReadWriteRoutingDataSource#onPrimary}).
+ * Como las versiones de la tabla se confirman en orden creciente (ver {@link TableVersionService#increment}),
+ * alcanza con recordar la ultima leida. Los cambios de esta instancia se reciben tambien.
+ * Un cambio cuyo payload no se puede leer se descarta (se registra y se cuenta en
+ * {@code cache.invalidation.skipped}) en lugar de detener la lectura del outbox; su entrada en la cache vence
+ * sola, igual que la de cualquier cambio que no llega.
+ */
+public class OutboxPollingInvalidationBus implements CategoriaInvalidationBus {
+    private static final Logger log = LoggerFactory.getLogger(OutboxPollingInvalidationBus.class);
+    private static final int PAGE_SIZE = 1000;
+
+    private final OutboxService outboxService;
+    private final ObjectMapper objectMapper;
+    private final Counter failedPolls;
+    private final Counter skippedChanges;
+    private final List<Consumer<CategoriaChangedEvent>> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("cache-invalidation").daemon().factory());
+
+    private volatile long lastSeq;
+
+    public OutboxPollingInvalidationBus(OutboxService outboxService, TableVersionService tableVersionService, ObjectMapper objectMapper,
+                                        Duration pollInterval, Counter failedPolls, Counter skippedChanges) {
+        this.outboxService = outboxService;
+        this.objectMapper = objectMapper;
+        this.failedPolls = failedPolls;
+        this.skippedChanges = skippedChanges;
+        // Lo anterior al inicio ya esta en la base de datos que se lee para llenar las caches
+        this.lastSeq = tableVersionService.get(OutboxService.CATEGORIA).getVersion();
+        scheduler.scheduleWithFixedDelay(this::poll, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * No envia nada: el cambio ya quedo en el outbox, en la transaccion de la escritura.
+     */
+    @Override
+    public void publish(CategoriaChangedEvent event) {
+    }
+
+    @Override
+    public void subscribe(Consumer<CategoriaChangedEvent> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Entrega los cambios confirmados desde la ultima lectura, un evento por transaccion y en orden.
+     */
+    void poll() {
+        try {
+            List<OutboxEvent> changes;
+            do {
+                changes = outboxService.findAfter(lastSeq, PAGE_SIZE);
+                int from = 0;
+                for (int i = 1; i <= changes.size(); i++) {
+                    if (i == changes.size() || !changes.get(i).getSeq().equals(changes.get(from).getSeq())) {
+                        deliver(changes.subList(from, i));
+                        lastSeq = changes.get(from).getSeq();
+                        from = i;
+                    }
+                }
+            } while (changes.size() >= PAGE_SIZE);
+        } catch (Exception e) {
+            // Se reintenta desde la misma version en el proximo intervalo
+            log.warn("No se pudo leer el outbox desde la version {}", lastSeq, e);
+            failedPolls.increment();
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void deliver(List<OutboxEvent> transaction) {
+        List<Categoria> saved = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        for (OutboxEvent change : transaction) {
+            if (change.getOperation() == OutboxEvent.Operation.DELETE)
+                deleted.add(change.getEntityId());
+            else
+                toCategoria(change).ifPresent(saved::add);
+        }
+        CategoriaChangedEvent event = new CategoriaChangedEvent(saved, deleted);
+        listeners.forEach(listener -> listener.accept(event));
+    }
+
+    private Optional<Categoria> toCategoria(OutboxEvent change) {
+        try {
+            return Optional.of(objectMapper.readValue(change.getPayload(), Categoria.class));
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            log.error("Se descarta el cambio {} de la categoria {} (version {}): no se pudo leer su payload",
+                    change.getId(), change.getEntityId(), change.getSeq(), e);
+            skippedChanges.increment();
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.microservice.category.mscategory.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microservice.category.mscategory.model.Categoria;
+import com.microservice.category.mscategory.model.OutboxEvent;
+import com.microservice.category.mscategory.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Escribe el outbox de la tabla categoria y lo expone como un feed incremental.
+ *
+ * Los cambios se conservan durante {@code outbox.retention} (ver {@link #purge()}): un consumidor que deja de
+ * leer el feed por mas tiempo pierde cambios y debe volver a empezar desde {@code /categorias/snapshot}.
+ */
+@Service
+@Profile("!reactive")
+public class OutboxService {
+    private static final Logger log = LoggerFactory.getLogger(OutboxService.class);
+    public static final String CATEGORIA = "categoria";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final TableVersionService tableVersionService;
+    private final ObjectMapper objectMapper;
+    private final Duration retention;
+
+    // Se completa (y reemplaza) despues de cada commit que escribio el outbox, para los consumidores en espera
+    private final AtomicReference<CompletableFuture<Void>> nextChange = new AtomicReference<>(new CompletableFuture<>());
+
+    public OutboxService(OutboxEventRepository outboxEventRepository, TableVersionService tableVersionService, ObjectMapper objectMapper,
+                         @Value("${outbox.retention:7d}") Duration retention) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.tableVersionService = tableVersionService;
+        this.objectMapper = objectMapper;
+        this.retention = retention;
+    }
+
+    /**
+     * Escribe un registro por cada categoria guardada o eliminada, en la transaccion de la escritura
+     * y con la version de la tabla que le corresponde como {@code seq} (ver {@link OutboxEvent}).
+     */
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(CategoriaChangedEvent event) {
+        if (event.saved().isEmpty() && event.deleted().isEmpty())
+            return;
+
+        long seq = tableVersionService.increment(CATEGORIA);
+        Instant now = Instant.now();
+        List<OutboxEvent> events = new ArrayList<>(event.saved().size() + event.deleted().size());
+        for (Categoria categoria : event.saved())
+            events.add(new OutboxEvent(CATEGORIA, seq, OutboxEvent.Operation.SAVE, categoria.getId(), toJson(categoria), now));
+        for (Long id : event.deleted())
+            events.add(new OutboxEvent(CATEGORIA, seq, OutboxEvent.Operation.DELETE, id, null, now));
+        outboxEventRepository.saveAll(events);
+    }
+
+    @TransactionalEventListener
+    public void afterCommit(CategoriaChangedEvent event) {
+        if (!event.saved().isEmpty() || !event.deleted().isEmpty())
+            wakeUp();
+    }
+
+    /**
+     * Completa el future de {@link #nextChange()} para los consumidores en espera. Ademas de los commits de
+     * esta instancia, lo llama el {@link CategoriaInvalidationBus} con los de las demas (ver
+     * {@code CacheInvalidationConfiguration}).
+     */
+    public void wakeUp() {
+        nextChange.getAndSet(new CompletableFuture<>()).complete(null);
+    }
+
+    /**
+     * Elimina los cambios escritos hace mas de {@code outbox.retention}, completando la transaccion del
+     * ultimo. La retencion tiene que superar con holgura el tiempo que un consumidor puede dejar de leer el feed
+     * (las demas instancias lo leen cada {@code cache.invalidation.poll-interval}).
+     *
+     * @return la cantidad de cambios eliminados.
+     */
+    @Scheduled(initialDelayString = "${outbox.purge-interval:PT1H}", fixedDelayString = "${outbox.purge-interval:PT1H}")
+    @Transactional
+    public int purge() {
+        Long seq = outboxEventRepository.findMaxSeqCreatedBefore(CATEGORIA, Instant.now().minus(retention));
+        if (seq == null)
+            return 0;
+
+        int purged = outboxEventRepository.deleteUpToSeq(CATEGORIA, seq);
+        log.info("Se eliminaron {} cambios del outbox hasta la version {}", purged, seq);
+        return purged;
+    }
+
+    /**
+     * @return los cambios confirmados con {@code seq} mayor a {@code since}, en orden. Los cambios de una
+     * misma transaccion no se separan: si el limite corta una transaccion, se completa con el resto de sus cambios.
+     */
+    public List<OutboxEvent> findAfter(Long since, int limit) {
+        List<OutboxEvent> changes = outboxEventRepository.findByTableNameAndSeqGreaterThanOrderBySeqAscIdAsc(CATEGORIA, since, PageRequest.ofSize(limit));
+        if (changes.size() < limit)
+            return changes;
+
+        OutboxEvent last = changes.get(changes.size() - 1);
+        List<OutboxEvent> rest = outboxEventRepository.findByTableNameAndSeqAndIdGreaterThanOrderByIdAsc(CATEGORIA, last.getSeq(), last.getId());
+        if (rest.isEmpty())
+            return changes;
+
+        List<OutboxEvent> complete = new ArrayList<>(changes);
+        complete.addAll(rest);
+        return complete;
+    }
+
+    /**
+     * @return un future que se completa con el proximo commit que escriba el outbox en esta instancia o, con
+     * {@code cache.invalidation.transport=outbox}, cuando esta instancia lea del outbox un commit de otra (como
+     * maximo {@code poll-interval} despues). Con {@code transport=none} solo lo completan los commits de esta
+     * instancia: quien espera un cambio de otra lo recibe al vencer la espera, al volver a consultar el outbox.
+     * Debe obtenerse antes de consultar {@link #findAfter(Long, int)}, para no perder un commit intermedio.
+     */
+    public CompletableFuture<Void> nextChange() {
+        return nextChange.get();
+    }
+
+    private String toJson(Categoria categoria) {
+        try {
+            return objectMapper.writeValueAsString(categoria);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
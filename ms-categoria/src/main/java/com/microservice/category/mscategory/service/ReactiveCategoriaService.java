@@ -0,0 +1,26 @@
+package com.microservice.category.mscategory.service;
+
+import com.microservice.category.mscategory.model.Categoria;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveCategoriaService {
+
+    Flux<Categoria> findAll();
+
+    Flux<Categoria> findAllAfter(Long after, int limit);
+
+    Mono<Categoria> findById(Long id);
+
+    Mono<Categoria> save(Categoria entity);
+
+    /**
+     * @return la categoria modificada, o vacio si no existe.
+     */
+    Mono<Categoria> update(Long id, Categoria entity);
+
+    /**
+     * @return la cantidad de categorias eliminadas, 0 si no existe.
+     */
+    Mono<Long> deleteById(Long id);
+}
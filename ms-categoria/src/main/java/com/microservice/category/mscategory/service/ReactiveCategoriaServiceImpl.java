@@ -0,0 +1,66 @@
+package com.microservice.category.mscategory.service;
+
+import com.microservice.category.mscategory.config.MetricsConfiguration;
+import com.microservice.category.mscategory.model.Categoria;
+import com.microservice.category.mscategory.repository.ReactiveCategoriaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@Profile("reactive")
+public class ReactiveCategoriaServiceImpl implements ReactiveCategoriaService {
+    private final ReactiveCategoriaRepository categoriaRepository;
+    private final MeterRegistry meterRegistry;
+
+    public ReactiveCategoriaServiceImpl(ReactiveCategoriaRepository categoriaRepository, MeterRegistry meterRegistry) {
+        this.categoriaRepository = categoriaRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Flux<Categoria> findAll() {
+        return categoriaRepository.findAll();
+    }
+
+    @Override
+    public Flux<Categoria> findAllAfter(Long after, int limit) {
+        return categoriaRepository.findAllAfter(after, limit);
+    }
+
+    @Override
+    public Mono<Categoria> findById(Long id) {
+        return categoriaRepository.findById(id);
+    }
+
+    @Override
+    public Mono<Categoria> save(Categoria entity) {
+        entity.setId(null);
+        return categoriaRepository.insert(entity)
+                .onErrorMap(DataIntegrityViolationException.class,
+                        e -> conflict("save", "La categoria ya existe", e));
+    }
+
+    @Override
+    public Mono<Categoria> update(Long id, Categoria entity) {
+        return categoriaRepository.update(id, entity)
+                .onErrorMap(DataIntegrityViolationException.class,
+                        e -> conflict("update", "La categoría ya existe", e));
+    }
+
+    @Override
+    public Mono<Long> deleteById(Long id) {
+        return categoriaRepository.deleteById(id)
+                // La unica restriccion que puede fallar al eliminar es la clave foranea de sus subcategorias
+                .onErrorMap(DataIntegrityViolationException.class,
+                        e -> conflict("deleteById", "La categoria tiene subcategorias", e));
+    }
+
+    private DataIntegrityViolationException conflict(String operation, String message, Throwable cause) {
+        meterRegistry.counter(MetricsConfiguration.SERVICE_CONFLICTS, "operation", operation).increment();
+        return new DataIntegrityViolationException(message, cause);
+    }
+}
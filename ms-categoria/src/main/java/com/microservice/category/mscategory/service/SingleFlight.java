@@ -0,0 +1,59 @@
+package com.microservice.category.mscategory.service;
+
+import io.micrometer.core.instrument.Counter;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Agrupa las llamadas concurrentes con la misma clave: la primera ejecuta la consulta y las que llegan mientras
+ * esta en curso esperan su resultado (o su excepcion) en lugar de repetirla. Al terminar, la clave se libera y la
+ * siguiente llamada vuelve a consultar, por lo que no reemplaza a la cache sino que evita que una rafaga de fallos
+ * de cache llegue completa a la base de datos.
+ *
+ * @param <K> la clave de la consulta, por ejemplo el id.
+ * @param <V> el resultado de la consulta.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    // Llamadas que recibieron el resultado de otra en lugar de consultar
+    private final Counter shared;
+
+    public SingleFlight(Counter shared) {
+        this.shared = shared;
+    }
+
+    public V execute(K key, Callable<V> query) throws Exception {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            shared.increment();
+            return await(existing);
+        }
+
+        try {
+            V result = query.call();
+            flight.complete(result);
+            return result;
+        } catch (Throwable e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) throws Exception {
+        try {
+            return flight.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause)
+                throw cause;
+            throw e;
+        }
+    }
+}
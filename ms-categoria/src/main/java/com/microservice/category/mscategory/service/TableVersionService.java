@@ -0,0 +1,101 @@
+package com.microservice.category.mscategory.service;
+
+import com.microservice.category.mscategory.model.TableVersion;
+import com.microservice.category.mscategory.repository.TableVersionRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@Profile("!reactive")
+public class TableVersionService {
+    private final TableVersionRepository tableVersionRepository;
+    private final TransactionTemplate newTransaction;
+
+    // Tablas cuya fila ya se sabe que existe: la creacion se intenta una sola vez por instancia
+    private final Set<String> created = ConcurrentHashMap.newKeySet();
+
+    public TableVersionService(TableVersionRepository tableVersionRepository, PlatformTransactionManager transactionManager) {
+        this.tableVersionRepository = tableVersionRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * @return la version actual de la tabla, o la version 0 si todavia no se escribio en ella.
+     */
+    public TableVersion get(String tableName) {
+        return tableVersionRepository.findById(tableName)
+                .orElseGet(() -> new TableVersion(tableName, 0L, Instant.EPOCH));
+    }
+
+    /**
+     * Incrementa la version de la tabla una vez por transaccion; las llamadas siguientes dentro de la
+     * misma transaccion retornan la version ya asignada. Se ejecuta dentro de la transaccion de la
+     * escritura, por lo que la nueva version se hace visible junto con los datos modificados, o no se
+     * hace visible si se revierte.
+     * La fila se lee con SELECT ... FOR UPDATE y queda bloqueada hasta el commit, por lo que a partir de
+     * aca las escrituras sobre la tabla quedan serializadas y las versiones se confirman en orden creciente
+     * (ver {@link com.microservice.category.mscategory.model.OutboxEvent}).
+     * La fila se crea al iniciar (ver {@link #createIfAbsent(String)}); si todavia no existe, se crea antes del
+     * bloqueo, por lo que dos primeras escrituras concurrentes no chocan al insertarla.
+     *
+     * @return la version asignada a la transaccion.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long increment(String tableName) {
+        String key = TableVersionService.class.getName() + "." + tableName;
+        Long assigned = (Long) TransactionSynchronizationManager.getResource(key);
+        if (assigned != null)
+            return assigned;
+
+        createIfAbsent(tableName);
+        Instant now = Instant.now();
+        TableVersion tableVersion = tableVersionRepository.findForUpdate(tableName)
+                .orElseThrow(() -> new IllegalStateException("No existe la version de la tabla " + tableName));
+        tableVersion.setVersion(tableVersion.getVersion() + 1);
+        tableVersion.setLastModified(now);
+
+        TransactionSynchronizationManager.bindResource(key, tableVersion.getVersion());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(key);
+            }
+        });
+        return tableVersion.getVersion();
+    }
+
+    /**
+     * Inserta la fila de la tabla con la version 0, si no existe, en una transaccion propia que se confirma de
+     * inmediato. Se ejecuta antes de cualquier lectura con bloqueo de table_version: un SELECT ... FOR UPDATE
+     * sin resultado bloquea en MySQL el hueco donde iria la fila, y esta insercion quedaria esperando a la
+     * transaccion que la inicio. Si otra transaccion la inserta al mismo tiempo, el conflicto se descarta.
+     * Cada servicio la llama al iniciar la aplicacion, para que las escrituras no necesiten una segunda conexion.
+     */
+    public void createIfAbsent(String tableName) {
+        if (created.contains(tableName))
+            return;
+
+        try {
+            newTransaction.executeWithoutResult(status -> {
+                if (!tableVersionRepository.existsById(tableName))
+                    tableVersionRepository.saveAndFlush(new TableVersion(tableName, 0L, Instant.EPOCH));
+            });
+        } catch (DataIntegrityViolationException e) {
+            // La inserto otra transaccion: la fila ya existe
+        }
+        created.add(tableName);
+    }
+}
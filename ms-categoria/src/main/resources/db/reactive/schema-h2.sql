@@ -0,0 +1,38 @@
+CREATE TABLE IF NOT EXISTS categoria (
+    id BIGINT NOT NULL PRIMARY KEY,
+    categoria VARCHAR(255) NOT NULL,
+    parent_id BIGINT,
+    path VARCHAR(700) DEFAULT '/' NOT NULL,
+    depth INTEGER DEFAULT 0 NOT NULL,
+    version BIGINT NOT NULL,
+    last_modified TIMESTAMP(6) WITH TIME ZONE,
+    CONSTRAINT uk_categoria_categoria UNIQUE (categoria),
+    CONSTRAINT fk_categoria_parent FOREIGN KEY (parent_id) REFERENCES categoria (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_categoria_path ON categoria (path, depth);
+
+CREATE SEQUENCE IF NOT EXISTS categoria_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS table_version (
+    table_name VARCHAR(64) NOT NULL PRIMARY KEY,
+    version BIGINT NOT NULL,
+    last_modified TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+INSERT INTO table_version (table_name, version, last_modified)
+SELECT 'categoria', 0, TIMESTAMP WITH TIME ZONE '1970-01-01 00:00:00Z' WHERE NOT EXISTS (SELECT * FROM table_version WHERE table_name = 'categoria');
+
+CREATE TABLE IF NOT EXISTS outbox_event (
+    id BIGINT NOT NULL PRIMARY KEY,
+    seq BIGINT NOT NULL,
+    table_name VARCHAR(64) NOT NULL,
+    operation VARCHAR(16) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    payload CLOB,
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_event_table_seq ON outbox_event (table_name, seq, id);
+
+CREATE SEQUENCE IF NOT EXISTS outbox_event_seq START WITH 1 INCREMENT BY 50;
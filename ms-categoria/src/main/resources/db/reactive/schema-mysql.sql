@@ -0,0 +1,48 @@
+CREATE TABLE IF NOT EXISTS categoria (
+    id BIGINT NOT NULL PRIMARY KEY,
+    categoria VARCHAR(255) NOT NULL,
+    parent_id BIGINT,
+    path VARCHAR(700) DEFAULT '/' NOT NULL,
+    depth INTEGER DEFAULT 0 NOT NULL,
+    version BIGINT NOT NULL,
+    last_modified DATETIME(6),
+    CONSTRAINT uk_categoria_categoria UNIQUE (categoria),
+    INDEX idx_categoria_path (path, depth),
+    CONSTRAINT fk_categoria_parent FOREIGN KEY (parent_id) REFERENCES categoria (id)
+);
+
+CREATE TABLE IF NOT EXISTS categoria_seq (
+    next_val BIGINT
+);
+
+INSERT INTO categoria_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT * FROM categoria_seq);
+
+-- Una base de datos con categorias anteriores a la secuencia (ver CategoriaSequenceInitializer)
+UPDATE categoria_seq SET next_val = (SELECT MAX(id) + 50 FROM categoria)
+WHERE next_val < (SELECT COALESCE(MAX(id), 0) + 50 FROM categoria) AND EXISTS (SELECT * FROM categoria);
+
+CREATE TABLE IF NOT EXISTS table_version (
+    table_name VARCHAR(64) NOT NULL PRIMARY KEY,
+    version BIGINT NOT NULL,
+    last_modified DATETIME(6) NOT NULL
+);
+
+-- Las escrituras solo actualizan la fila: se crea aca para que dos primeras escrituras no compitan por insertarla
+INSERT IGNORE INTO table_version (table_name, version, last_modified) VALUES ('categoria', 0, '1970-01-01 00:00:00');
+
+CREATE TABLE IF NOT EXISTS outbox_event (
+    id BIGINT NOT NULL PRIMARY KEY,
+    seq BIGINT NOT NULL,
+    table_name VARCHAR(64) NOT NULL,
+    operation VARCHAR(16) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    payload LONGTEXT,
+    created_at DATETIME(6) NOT NULL,
+    INDEX idx_outbox_event_table_seq (table_name, seq, id)
+);
+
+CREATE TABLE IF NOT EXISTS outbox_event_seq (
+    next_val BIGINT
+);
+
+INSERT INTO outbox_event_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT * FROM outbox_event_seq);
@@ -0,0 +1,160 @@
+package com.microservice.category.mscategory;
+
+import com.microservice.category.mscategory.config.CacheConfiguration;
+import com.microservice.category.mscategory.config.MetricsConfiguration;
+import com.microservice.category.mscategory.exception.ConflictException;
+import com.microservice.category.mscategory.model.Categoria;
+import com.microservice.category.mscategory.service.CategoriaSearchIndex;
+import com.microservice.category.mscategory.service.CategoriaServiceImpl;
+import com.microservice.category.mscategory.service.OutboxService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Levanta varias instancias del servicio en la misma JVM, sobre la misma base de datos H2, y verifica que una
+ * escritura en una de ellas invalide las caches de las demas, con cada transporte de cache.invalidation.
+ */
+class CacheCoherenceTests {
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(100);
+
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void inProcessTransportInvalidatesTheOtherInstancesOnCommit() throws Exception {
+        startNodes(3, "--cache.invalidation.transport=in-process", "--cache.invalidation.group=" + UUID.randomUUID());
+        CategoriaServiceImpl writer = service(0);
+
+        Long id = writer.save(new Categoria("Hogar")).getId();
+        for (int i = 1; i < nodes.size(); i++) {
+            assertThat(service(i).findById(id)).get().extracting(Categoria::getCategoria).isEqualTo("Hogar");
+            assertThat(service(i).findByCategoria("Hogar")).isPresent();
+            assertThat(cacheManager(i).getCache(CacheConfiguration.CATEGORIAS_POR_ID).get(id)).isNotNull();
+        }
+
+        writer.update(id, new Categoria("Cocina"));
+
+        // El cambio se entrega en el commit: ninguna instancia vuelve a leer el nombre anterior
+        for (int i = 1; i < nodes.size(); i++) {
+            assertThat(service(i).findById(id)).get().extracting(Categoria::getCategoria).isEqualTo("Cocina");
+            assertThat(service(i).findByCategoria("Hogar")).isEmpty();
+            assertThat(searchIndex(i).search("coc", 10)).extracting(Categoria::getId).containsExactly(id);
+            assertThat(searchIndex(i).search("hog", 10)).isEmpty();
+        }
+
+        writer.deleteById(id);
+        for (int i = 1; i < nodes.size(); i++)
+            assertThat(service(i).findById(id)).isEmpty();
+    }
+
+    @Test
+    void outboxTransportConvergesWithinThePollInterval() throws Exception {
+        startNodes(2, "--cache.invalidation.transport=outbox", "--cache.invalidation.poll-interval=" + POLL_INTERVAL.toMillis() + "ms");
+        CategoriaServiceImpl writer = service(0);
+        CategoriaServiceImpl reader = service(1);
+
+        Long id = writer.save(new Categoria("Hogar")).getId();
+        assertThat(reader.findById(id)).get().extracting(Categoria::getCategoria).isEqualTo("Hogar");
+
+        writer.update(id, new Categoria("Cocina"));
+        // Se espera tambien al indice de busqueda: si el alta se recibe despues de la primera consulta, desaloja la
+        // categoria y la siguiente consulta la lee modificada de la base de datos antes de recibir la modificacion
+        long start = System.nanoTime();
+        while (!"Cocina".equals(reader.findById(id).map(Categoria::getCategoria).orElse(null))
+                || searchIndex(1).search("coc", 10).isEmpty()) {
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(10));
+            Thread.sleep(10);
+        }
+        assertThat(reader.findByCategoria("Hogar")).isEmpty();
+        assertThat(searchIndex(1).search("coc", 10)).extracting(Categoria::getId).containsExactly(id);
+
+        // El indice unico rechaza el duplicado aunque la instancia todavia no haya recibido el cambio
+        assertThatThrownBy(() -> reader.save(new Categoria("Cocina"))).isInstanceOf(ConflictException.class);
+    }
+
+    @Test
+    void outboxTransportSkipsAChangeItCannotRead() throws Exception {
+        startNodes(2, "--cache.invalidation.transport=outbox", "--cache.invalidation.poll-interval=" + POLL_INTERVAL.toMillis() + "ms");
+        CategoriaServiceImpl writer = service(0);
+        CategoriaServiceImpl reader = service(1);
+
+        Long id = writer.save(new Categoria("Hogar")).getId();
+        assertThat(reader.findById(id)).get().extracting(Categoria::getCategoria).isEqualTo("Hogar");
+
+        // Un cambio con su propia version cuyo payload no es una categoria
+        JdbcTemplate jdbcTemplate = nodes.get(0).getBean(JdbcTemplate.class);
+        jdbcTemplate.update("UPDATE table_version SET version = version + 1 WHERE table_name = 'categoria'");
+        jdbcTemplate.update("INSERT INTO outbox_event (id, seq, table_name, operation, entity_id, payload, created_at) "
+                + "SELECT NEXT VALUE FOR outbox_event_seq, version, table_name, 'SAVE', ?, '{\"id\":', CURRENT_TIMESTAMP "
+                + "FROM table_version WHERE table_name = 'categoria'", id);
+
+        // Los cambios posteriores se siguen entregando. Se espera tambien al descarte: si el alta se recibe despues de
+        // la primera consulta, desaloja la categoria y la siguiente consulta la lee modificada antes del descarte
+        writer.update(id, new Categoria("Cocina"));
+        Counter skipped = nodes.get(1).getBean(MeterRegistry.class).counter(MetricsConfiguration.CACHE_INVALIDATION_SKIPPED);
+        long start = System.nanoTime();
+        while (skipped.count() == 0 || !"Cocina".equals(reader.findById(id).map(Categoria::getCategoria).orElse(null))) {
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(10));
+            Thread.sleep(10);
+        }
+        assertThat(skipped.count()).isEqualTo(1);
+    }
+
+    @Test
+    void outboxTransportWakesUpTheChangesFeedOfTheOtherInstances() throws Exception {
+        startNodes(2, "--cache.invalidation.transport=outbox", "--cache.invalidation.poll-interval=" + POLL_INTERVAL.toMillis() + "ms");
+        CompletableFuture<Void> nextChange = nodes.get(1).getBean(OutboxService.class).nextChange();
+
+        service(0).save(new Categoria("Hogar"));
+
+        nextChange.get(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * La primera instancia crea el esquema; las demas lo usan tal cual.
+     */
+    private void startNodes(int count, String... args) {
+        String database = "jdbc:h2:mem:coherence-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        for (int i = 0; i < count; i++) {
+            List<String> arguments = new ArrayList<>(List.of(args));
+            arguments.add("--server.port=0");
+            arguments.add("--spring.datasource.url=" + database);
+            arguments.add("--spring.jpa.hibernate.ddl-auto=" + (i == 0 ? "create" : "none"));
+            nodes.add(new SpringApplicationBuilder(MsCategoriaApplication.class)
+                    .profiles("test")
+                    .run(arguments.toArray(String[]::new)));
+        }
+    }
+
+    private CategoriaServiceImpl service(int node) {
+        return nodes.get(node).getBean(CategoriaServiceImpl.class);
+    }
+
+    private CacheManager cacheManager(int node) {
+        return nodes.get(node).getBean(CacheManager.class);
+    }
+
+    private CategoriaSearchIndex searchIndex(int node) {
+        return nodes.get(node).getBean(CategoriaSearchIndex.class);
+    }
+}
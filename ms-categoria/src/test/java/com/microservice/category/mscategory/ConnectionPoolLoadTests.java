@@ -0,0 +1,117 @@
+package com.microservice.category.mscategory;
+
+import com.microservice.category.mscategory.model.Categoria;
+import com.microservice.category.mscategory.repository.CategoriaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mide la espera por una conexion ({@code hikaricp.connections.acquire}) y el throughput de GET /categorias
+ * con {@link #CLIENTS} clientes concurrentes y distintos tamaños de pool. Cada sentencia SQL se demora
+ * {@link VirtualThreadsLoadTests#STATEMENT_LATENCY_MS} ms (ver {@link VirtualThreadsLoadTests.SlowDataSource}),
+ * por lo que el pool es el unico recurso limitado: la espera crece con clientes / conexiones.
+ *
+ * Resultados de referencia (H2 en memoria, 1 CPU, 100 clientes, 2 sentencias por solicitud):
+ * <pre>
+ * pool | req/s | espera media | espera maxima
+ *  10  |   40  |    898 ms    |   3637 ms
+ *  20  |   76  |    403 ms    |   2435 ms
+ *  50  |  147  |     92 ms    |    673 ms
+ * </pre>
+ * Con MySQL el limite lo pone el servidor antes que el pool: mas conexiones que nucleos del servidor * 2
+ * suman contencion sin throughput, por lo que el valor por defecto (20, {@code DB_POOL_SIZE}) se mantiene
+ * cerca de ese limite y {@code connection-timeout} corta la espera en 2 segundos.
+ *
+ * Se ejecuta con {@code mvn test -Pload-tests}.
+ */
+@Tag("load")
+class ConnectionPoolLoadTests {
+    private static final int CLIENTS = 100;
+    private static final int REQUESTS = 2000;
+
+    @Test
+    void largerPoolsReduceTheWaitForAConnection() throws Exception {
+        double small = measureAcquireWait(10);
+        measureAcquireWait(20);
+        double large = measureAcquireWait(50);
+
+        assertThat(large).isLessThan(small);
+    }
+
+    /**
+     * @return la espera media por una conexion, en milisegundos.
+     */
+    private double measureAcquireWait(int poolSize) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MsCategoriaApplication.class,
+                VirtualThreadsLoadTests.SlowStatementsConfiguration.class)
+                .profiles("test")
+                .run("--server.port=0",
+                        "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                        "--spring.datasource.hikari.minimum-idle=" + poolSize,
+                        // Se mide la espera completa, sin que las solicitudes fallen por timeout
+                        "--spring.datasource.hikari.connection-timeout=60000",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false")) {
+            CategoriaRepository repository = context.getBean(CategoriaRepository.class);
+            List<Categoria> categorias = new ArrayList<>();
+            for (int i = 0; i < 100; i++)
+                categorias.add(new Categoria("Carga " + i));
+            repository.saveAll(categorias);
+
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            String authorization = "Basic " + Base64.getEncoder().encodeToString("admin2:321".getBytes(StandardCharsets.UTF_8));
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/categorias?limit=20"))
+                    .header("Authorization", authorization)
+                    .build();
+
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+            Timer acquire = context.getBean(MeterRegistry.class).get("hikaricp.connections.acquire").tag("pool", "categoria").timer();
+            long acquiredBefore = acquire.count();
+            double waitBefore = acquire.totalTime(TimeUnit.MILLISECONDS);
+            Semaphore inFlight = new Semaphore(CLIENTS);
+            AtomicInteger succeeded = new AtomicInteger();
+            List<CompletableFuture<?>> responses = new ArrayList<>(REQUESTS);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < REQUESTS; i++) {
+                inFlight.acquire();
+                responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                        .whenComplete((response, error) -> {
+                            inFlight.release();
+                            if (error == null && response.statusCode() == 200)
+                                succeeded.incrementAndGet();
+                        }));
+            }
+            CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).exceptionally(error -> null).join();
+            long elapsed = System.nanoTime() - start;
+
+            assertThat(succeeded.get()).isEqualTo(REQUESTS);
+            double meanWait = (acquire.totalTime(TimeUnit.MILLISECONDS) - waitBefore) / (acquire.count() - acquiredBefore);
+            System.out.printf("Pool de %d conexiones: %.0f req/s, espera media %.0f ms, espera maxima %.0f ms%n", poolSize,
+                    REQUESTS / (elapsed / 1_000_000_000.0), meanWait, acquire.max(TimeUnit.MILLISECONDS));
+            return meanWait;
+        }
+    }
+}
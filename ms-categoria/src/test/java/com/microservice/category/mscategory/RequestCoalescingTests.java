@@ -0,0 +1,82 @@
+package com.microservice.category.mscategory;
+
+import com.microservice.category.mscategory.config.MetricsConfiguration;
+import com.microservice.category.mscategory.model.Categoria;
+import com.microservice.category.mscategory.repository.CategoriaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Verifica que las solicitudes concurrentes del mismo id, con la cache vacia, compartan una unica consulta.
+ * Cada sentencia SQL se demora {@link VirtualThreadsLoadTests.SlowDataSource} para que todas las solicitudes
+ * lleguen mientras la primera consulta esta en curso.
+ */
+@SpringBootTest(classes = {MsCategoriaApplication.class, VirtualThreadsLoadTests.SlowStatementsConfiguration.class})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RequestCoalescingTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void concurrentLookupsOfTheSameIdRunOneStatement() throws Exception {
+        Long id = categoriaRepository.save(new Categoria("Hogar")).getId();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        int requests = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return mockMvc.perform(get("/api/v1/categoria/{id}", id).with(httpBasic("admin2", "321")))
+                            .andReturn().getResponse().getStatus();
+                }));
+            }
+            start.countDown();
+
+            for (Future<Integer> result : results)
+                assertThat(result.get(30, TimeUnit.SECONDS)).isEqualTo(200);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Una sola consulta: el resto de las solicitudes espero su resultado o lo encontro en la cache
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(meterRegistry.get(MetricsConfiguration.SERVICE_COALESCED).tag("operation", "findById").counter().count())
+                .isGreaterThan(0);
+    }
+}
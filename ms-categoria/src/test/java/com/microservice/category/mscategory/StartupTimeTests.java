@@ -0,0 +1,108 @@
+package com.microservice.category.mscategory;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.jar.JarFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Mide el tiempo desde que se lanza el proceso hasta la primera respuesta exitosa de GET /categorias, para el
+ * jar ({@code target/ms-categoria.jar}) y para la imagen nativa ({@code target/ms-categoria}). Si el jar se
+ * construyo con {@code -Pnative} se ejecuta con {@code -Dspring.aot.enabled=true}. Cada medicion se omite si
+ * su artefacto no existe.
+ *
+ * Se ejecuta con {@code mvn -Pnative package native:compile -DskipTests && mvn test -Pstartup-tests}. Los
+ * procesos usan la base de datos de application.properties; con {@code -Dstartup.args="--spring.datasource.url=..."}
+ * se pueden pasar otros argumentos.
+ */
+@Tag("startup")
+class StartupTimeTests {
+    private static final Path JAR = Path.of("target", "ms-categoria.jar");
+    private static final Path NATIVE_IMAGE = Path.of("target", "ms-categoria");
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+    @Test
+    void jvmStartsAndServesTheFirstRequest() throws Exception {
+        assumeTrue(Files.isRegularFile(JAR), "No existe " + JAR);
+
+        List<String> command = new ArrayList<>(List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString()));
+        boolean aot = isAotProcessed(JAR);
+        if (aot)
+            command.add("-Dspring.aot.enabled=true");
+        command.addAll(List.of("-jar", JAR.toString()));
+
+        Duration elapsed = timeToFirstRequest(command);
+        System.out.printf("JVM%s: primera solicitud exitosa a los %d ms%n", aot ? " (AOT)" : "", elapsed.toMillis());
+        assertThat(elapsed).isLessThan(TIMEOUT);
+    }
+
+    @Test
+    void nativeImageStartsAndServesTheFirstRequest() throws Exception {
+        assumeTrue(Files.isExecutable(NATIVE_IMAGE), "No existe " + NATIVE_IMAGE);
+
+        Duration elapsed = timeToFirstRequest(new ArrayList<>(List.of(NATIVE_IMAGE.toString())));
+        System.out.printf("Imagen nativa: primera solicitud exitosa a los %d ms%n", elapsed.toMillis());
+        assertThat(elapsed).isLessThan(TIMEOUT);
+    }
+
+    private Duration timeToFirstRequest(List<String> command) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        command.add("--server.port=" + port);
+        String extraArgs = System.getProperty("startup.args", "").trim();
+        if (!extraArgs.isEmpty())
+            command.addAll(Arrays.asList(extraArgs.split("\\s+")));
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/categorias?limit=1"))
+                .header("Authorization", "Basic " + Base64.getEncoder().encodeToString("admin2:321".getBytes(StandardCharsets.UTF_8)))
+                .build();
+
+        File log = Files.createTempFile("startup", ".log").toFile();
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log).start();
+        try {
+            while (System.nanoTime() - start < TIMEOUT.toNanos()) {
+                assertThat(process.isAlive()).as("El proceso termino antes de responder, ver %s", log).isTrue();
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200)
+                        return Duration.ofNanos(System.nanoTime() - start);
+                } catch (ConnectException ex) {
+                    // Todavia no escucha en el puerto
+                }
+                Thread.sleep(10);
+            }
+            return TIMEOUT;
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static boolean isAotProcessed(Path jar) throws IOException {
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            return "true".equals(jarFile.getManifest().getMainAttributes().getValue("Spring-Boot-Native-Processed"));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.microservice.category.mscategory;
+
+import com.microservice.category.mscategory.repository.OutboxEventRepository;
+import com.microservice.category.mscategory.service.OutboxService;
+import com.microservice.category.mscategory.service.TableVersionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Verifica las primeras escrituras concurrentes sobre una base de datos nueva, sin crear antes la fila de
+ * table_version: ninguna debe fallar ni informarse como un nombre duplicado. Cada sentencia SQL se demora
+ * {@link VirtualThreadsLoadTests.SlowDataSource} para que las escrituras se superpongan.
+ */
+@SpringBootTest(classes = {MsCategoriaApplication.class, VirtualThreadsLoadTests.SlowStatementsConfiguration.class},
+        properties = "spring.datasource.url=jdbc:h2:mem:table-version-tests;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TableVersionTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TableVersionService tableVersionService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Test
+    void concurrentFirstWritesOnAFreshDatabaseAllSucceed() throws Exception {
+        int requests = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                String name = "Categoria " + i;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return mockMvc.perform(post("/api/v1/categorias").with(httpBasic("admin2", "321"))
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content("{\"categoria\":\"" + name + "\"}"))
+                            .andReturn().getResponse().getStatus();
+                }));
+            }
+            start.countDown();
+
+            for (Future<Integer> result : results)
+                assertThat(result.get(60, TimeUnit.SECONDS)).isEqualTo(200);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Una version por escritura, confirmadas en orden y sin repetirse en el outbox
+        assertThat(tableVersionService.get(OutboxService.CATEGORIA).getVersion()).isEqualTo(requests);
+        assertThat(outboxEventRepository.findAll()).extracting("seq").doesNotHaveDuplicates().hasSize(requests);
+    }
+}
@@ -0,0 +1,150 @@
+package com.microservice.category.mscategory;
+
+import com.microservice.category.mscategory.model.Categoria;
+import com.microservice.category.mscategory.repository.CategoriaRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compara el throughput del servicio atendiendo las solicitudes con el pool de hilos de Tomcat
+ * y con hilos virtuales. Cada sentencia SQL se demora {@link #STATEMENT_LATENCY_MS} ms para simular
+ * la latencia de MySQL sobre la base H2 en memoria. El pool de Tomcat queda limitado por sus 200 hilos
+ * bloqueados en JDBC, mientras que con hilos virtuales el limite pasa a ser el pool de conexiones.
+ *
+ * Se ejecuta con {@code mvn test -Pload-tests}, que ademas reporta los hilos virtuales que quedan
+ * fijados a su carrier ({@code -Djdk.tracePinnedThreads=short}).
+ */
+@Tag("load")
+class VirtualThreadsLoadTests {
+    private static final int CLIENTS = 1000;
+    private static final int REQUESTS = 5000;
+    private static final long STATEMENT_LATENCY_MS = 100;
+
+    @Test
+    void virtualThreadsServeMoreRequestsPerSecondUnderHighConcurrency() throws Exception {
+        double platform = measureThroughput(false);
+        double virtual = measureThroughput(true);
+
+        System.out.printf("Hilos de plataforma: %.0f req/s, hilos virtuales: %.0f req/s%n", platform, virtual);
+        assertThat(virtual).isGreaterThan(platform);
+    }
+
+    private double measureThroughput(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MsCategoriaApplication.class, SlowStatementsConfiguration.class)
+                .profiles("test")
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        // El pool no debe ser el cuello de botella: se compara solo el modelo de hilos
+                        "--spring.datasource.hikari.maximum-pool-size=" + CLIENTS,
+                        "--spring.jpa.properties.hibernate.generate_statistics=false")) {
+            CategoriaRepository repository = context.getBean(CategoriaRepository.class);
+            List<Categoria> categorias = new ArrayList<>();
+            for (int i = 0; i < 100; i++)
+                categorias.add(new Categoria("Carga " + i));
+            repository.saveAll(categorias);
+
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            String authorization = "Basic " + Base64.getEncoder().encodeToString("admin2:321".getBytes(StandardCharsets.UTF_8));
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/categorias?limit=20"))
+                    .header("Authorization", authorization)
+                    .build();
+
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+            Semaphore inFlight = new Semaphore(CLIENTS);
+            AtomicInteger succeeded = new AtomicInteger();
+            List<CompletableFuture<?>> responses = new ArrayList<>(REQUESTS);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < REQUESTS; i++) {
+                inFlight.acquire();
+                responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                        .whenComplete((response, error) -> {
+                            inFlight.release();
+                            if (error == null && response.statusCode() == 200)
+                                succeeded.incrementAndGet();
+                        }));
+            }
+            CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).exceptionally(error -> null).join();
+            long elapsed = System.nanoTime() - start;
+
+            assertThat(succeeded.get()).isEqualTo(REQUESTS);
+            return REQUESTS / (elapsed / 1_000_000_000.0);
+        }
+    }
+
+    static class SlowStatementsConfiguration {
+
+        /**
+         * Usuario sin recodificacion de la contraseña, para que el costo de BCrypt no oculte
+         * la diferencia entre los dos modelos de hilos.
+         */
+        @Bean
+        UserDetailsService userDetailsService() {
+            return username -> User.withUsername("admin2").password("{noop}321").roles("USER").build();
+        }
+
+        @Bean
+        static BeanPostProcessor slowStatementsDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource)
+                        return new SlowDataSource(dataSource);
+                    return bean;
+                }
+            };
+        }
+    }
+
+    static class SlowDataSource extends DelegatingDataSource {
+
+        SlowDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().startsWith("prepare"))
+                            Thread.sleep(STATEMENT_LATENCY_MS);
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException ex) {
+                            throw ex.getCause();
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.microservice.category.mscategory.config;
+
+import com.microservice.category.mscategory.service.CategoriaServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.interceptor.CacheInterceptor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica que el interceptor de la cache envuelva al de las transacciones, para que la cache se modifique
+ * despues del commit.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CacheConfigurationTests {
+
+    @Autowired
+    private CategoriaServiceImpl categoriaService;
+
+    @Test
+    void theCacheAdviceRunsOutsideTheTransaction() {
+        List<Class<?>> advice = Arrays.stream(((Advised) categoriaService).getAdvisors())
+                .map(Advisor::getAdvice)
+                .<Class<?>>map(Object::getClass)
+                .toList();
+
+        assertThat(advice).contains(CacheInterceptor.class, TransactionInterceptor.class);
+        assertThat(advice.indexOf(CacheInterceptor.class)).isLessThan(advice.indexOf(TransactionInterceptor.class));
+    }
+}
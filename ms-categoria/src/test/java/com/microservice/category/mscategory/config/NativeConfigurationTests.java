@@ -0,0 +1,36 @@
+package com.microservice.category.mscategory.config;
+
+import com.microservice.category.mscategory.model.Categoria;
+import com.microservice.category.mscategory.repository.BaseRepository;
+import com.microservice.category.mscategory.service.BaseServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import java.io.Serializable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica los hints que la imagen nativa necesita para la jerarquia Base* y las entidades.
+ */
+class NativeConfigurationTests {
+
+    @Test
+    void registersTheHintsForTheGenericHierarchyAndTheEntities() throws Exception {
+        RuntimeHints hints = new RuntimeHints();
+        new NativeConfiguration.Hints().registerHints(hints, getClass().getClassLoader());
+
+        assertThat(RuntimeHintsPredicates.reflection().onType(Categoria.class).withMemberCategories(MemberCategory.DECLARED_FIELDS))
+                .accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(Categoria.class.getMethod("getCategoria")))
+                .accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(BaseServiceImpl.class.getMethod("findAllAfter", Serializable.class, int.class)))
+                .accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(BaseRepository.class.getMethod("streamAllByOrderByIdAsc")))
+                .accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("db/reactive/schema-mysql.sql"))
+                .accepts(hints);
+    }
+}
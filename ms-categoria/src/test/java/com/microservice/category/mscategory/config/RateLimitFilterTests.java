@@ -0,0 +1,116 @@
+package com.microservice.category.mscategory.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "rate-limit.enabled=true",
+        "rate-limit.rules.crear.requests-per-second=0.01",
+        "rate-limit.rules.crear.burst=2",
+        "rate-limit.rules.listar.requests-per-second=0",
+        "rate-limit.rules.listar.max-concurrent=1"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RateLimitFilterTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FilterRegistrationBean<RateLimitFilter> rateLimitFilter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void requestsBeyondTheBurstAreRejectedWithTooManyRequests() throws Exception {
+        for (String categoria : new String[]{"Hogar", "Cocina"})
+            mockMvc.perform(post("/api/v1/categorias").with(httpBasic("admin2", "321"))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"categoria\":\"" + categoria + "\"}"))
+                    .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/v1/categorias").with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\":\"Libros\"}"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.status_code").value(429))
+                .andExpect(jsonPath("$.error").value("Too Many Requests"));
+
+        assertThat(meterRegistry.get(MetricsConfiguration.RATE_LIMIT_REJECTED)
+                .tag("rule", "crear").tag("reason", "rate_limit").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void requestsBeyondTheConcurrencyLimitAreShed() throws Exception {
+        CountDownLatch inChain = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Una solicitud ocupa el unico lugar y queda esperando dentro del controller
+        CompletableFuture<MockHttpServletResponse> first = CompletableFuture.supplyAsync(() -> {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            try {
+                rateLimitFilter.getFilter().doFilter(new MockHttpServletRequest("GET", "/api/v1/categorias"), response, (request, ignored) -> {
+                    inChain.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+            return response;
+        });
+        assertThat(inChain.await(10, TimeUnit.SECONDS)).isTrue();
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        rateLimitFilter.getFilter().doFilter(new MockHttpServletRequest("GET", "/api/v1/categorias"), rejected,
+                (request, response) -> {
+                    throw new AssertionError("La solicitud debio rechazarse");
+                });
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getContentAsString()).contains("\"status_code\":503");
+        assertThat(meterRegistry.get(MetricsConfiguration.RATE_LIMIT_IN_FLIGHT).tag("rule", "listar").gauge().value()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(first.get(10, TimeUnit.SECONDS).getStatus()).isEqualTo(200);
+        assertThat(meterRegistry.get(MetricsConfiguration.RATE_LIMIT_IN_FLIGHT).tag("rule", "listar").gauge().value()).isZero();
+        assertThat(meterRegistry.get(MetricsConfiguration.RATE_LIMIT_REJECTED)
+                .tag("rule", "listar").tag("reason", "concurrency").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void anAsyncRequestKeepsItsPlaceUntilTheResponseCompletes() throws Exception {
+        MockHttpServletRequest longPoll = new MockHttpServletRequest("GET", "/api/v1/categorias");
+        longPoll.setAsyncSupported(true);
+        // El controller inicia la respuesta asincronica y el filtro retorna antes de que termine
+        rateLimitFilter.getFilter().doFilter(longPoll, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+        assertThat(meterRegistry.get(MetricsConfiguration.RATE_LIMIT_IN_FLIGHT).tag("rule", "listar").gauge().value()).isEqualTo(1);
+
+        longPoll.getAsyncContext().complete();
+        assertThat(meterRegistry.get(MetricsConfiguration.RATE_LIMIT_IN_FLIGHT).tag("rule", "listar").gauge().value()).isZero();
+    }
+}
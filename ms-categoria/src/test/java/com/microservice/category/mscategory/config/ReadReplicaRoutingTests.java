@@ -0,0 +1,115 @@
+package com.microservice.category.mscategory.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica el ruteo entre primario y replica con dos bases H2 independientes. La replica arranca con el
+ * esquema vacio y solo recibe los datos del primario cuando el test los copia, por lo que una lectura que
+ * encuentra la categoria recien creada fue al primario y una que no la encuentra fue a la replica.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.replica.url=jdbc:h2:mem:replica-${random.uuid};DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:db/reactive/schema-h2.sql'",
+        "spring.datasource.replica.read-your-writes-window=1s",
+        // Cada conexion nueva de la replica ejecuta el INIT de su URL: con una unica conexion, el pool no crea
+        // otra (y el esquema de nuevo) mientras replicate() copia el primario
+        "spring.datasource.replica.hikari.maximum-pool-size=1",
+        "spring.datasource.replica.hikari.minimum-idle=1",
+        "spring.cache.type=none"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReadReplicaRoutingTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Test
+    void readsGoToTheReplicaExceptRightAfterTheUsersOwnWrite() throws Exception {
+        String saved = mockMvc.perform(post("/api/v1/categorias").with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\":\"Hogar\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(saved).get("id").asLong();
+
+        // Dentro de la ventana, el mismo usuario lee del primario
+        mockMvc.perform(get("/api/v1/categorias").param("after", String.valueOf(id - 1)).param("limit", "1").with(httpBasic("admin2", "321")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].id").value(hasItem((int) id)));
+
+        // Pasada la ventana, lee de la replica, que todavia no tiene la categoria
+        Thread.sleep(1500);
+        mockMvc.perform(get("/api/v1/categorias").param("after", String.valueOf(id - 1)).param("limit", "1").with(httpBasic("admin2", "321")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].id").value(not(hasItem((int) id))));
+
+        // Salvo las lecturas que llenan la cache, que siempre van al primario
+        mockMvc.perform(get("/api/v1/categoria/{id}", id).with(httpBasic("admin2", "321")))
+                .andExpect(status().isOk());
+
+        replicate();
+        mockMvc.perform(get("/api/v1/categorias").param("after", String.valueOf(id - 1)).param("limit", "1").with(httpBasic("admin2", "321")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].id").value(hasItem((int) id)));
+    }
+
+    @Test
+    void theWindowIsKeptPerClientOfTheSameUser() throws Exception {
+        String saved = mockMvc.perform(post("/api/v1/categorias").with(httpBasic("admin2", "321"))
+                        .header(ReadWriteRoutingDataSource.CLIENT_HEADER, "escritor")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\":\"Jardin\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(saved).get("id").asLong();
+
+        // Otro cliente con el mismo usuario sigue leyendo de la replica
+        mockMvc.perform(get("/api/v1/categorias").param("after", String.valueOf(id - 1)).param("limit", "1").with(httpBasic("admin2", "321"))
+                        .header(ReadWriteRoutingDataSource.CLIENT_HEADER, "lector"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].id").value(not(hasItem((int) id))));
+        mockMvc.perform(get("/api/v1/categorias").param("after", String.valueOf(id - 1)).param("limit", "1").with(httpBasic("admin2", "321"))
+                        .header(ReadWriteRoutingDataSource.CLIENT_HEADER, "escritor"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].id").value(hasItem((int) id)));
+    }
+
+    /**
+     * Reemplaza el contenido de la replica por una copia del primario.
+     */
+    private void replicate() {
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("DROP ALL OBJECTS");
+        new JdbcTemplate(primaryDataSource).queryForList("SCRIPT", String.class).forEach(replica::execute);
+    }
+}
@@ -0,0 +1,86 @@
+package com.microservice.category.mscategory.config;
+
+import com.microservice.category.mscategory.model.Categoria;
+import com.microservice.category.mscategory.repository.CategoriaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica, con Tomcat, que los listados se compriman con gzip cuando el cliente lo acepta y mide el tamaño de
+ * la respuesta de 1000 categorias con y sin compresion y con y sin {@code fields}.
+ *
+ * Resultados de referencia (bytes):
+ * <pre>
+ *                   | sin comprimir | gzip
+ * completo          |     48813     | 5221
+ * fields=id         |     10923     | 2143
+ * </pre>
+ * Las categorias solo publican id y categoria, por lo que {@code fields=id,categoria} pesa lo mismo que el listado
+ * completo; su ventaja es que la consulta no lee version ni last_modified ni crea entidades.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class ResponseCompressionTests {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() {
+        categoriaRepository.deleteAllInBatch();
+        List<Categoria> categorias = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            categorias.add(new Categoria("Categoria de prueba " + i));
+        categoriaRepository.saveAll(categorias);
+    }
+
+    @Test
+    void largeListingsAreCompressedWhenTheClientAcceptsGzip() throws Exception {
+        HttpResponse<byte[]> plain = get("/api/v1/categorias?limit=1000", null);
+        HttpResponse<byte[]> gzip = get("/api/v1/categorias?limit=1000", "gzip");
+        HttpResponse<byte[]> plainFields = get("/api/v1/categorias?limit=1000&fields=id", null);
+        HttpResponse<byte[]> gzipFields = get("/api/v1/categorias?limit=1000&fields=id", "gzip");
+
+        assertThat(plain.headers().firstValue("Content-Encoding")).isEmpty();
+        assertThat(gzip.headers().firstValue("Content-Encoding")).hasValue("gzip");
+        assertThat(gzip.headers().firstValue("ETag")).hasValueSatisfying(eTag -> assertThat(eTag).startsWith("W/"));
+        assertThat(gzip.body().length).isLessThan(plain.body().length / 4);
+        assertThat(plainFields.body().length).isLessThan(plain.body().length / 2);
+        assertThat(gzipFields.headers().firstValue("Content-Encoding")).hasValue("gzip");
+        System.out.printf("Listado de 1000 categorias: completo %d bytes (gzip %d), fields=id %d bytes (gzip %d)%n",
+                plain.body().length, gzip.body().length, plainFields.body().length, gzipFields.body().length);
+
+        // Por debajo de server.compression.min-response-size no se comprime
+        HttpResponse<byte[]> small = get("/api/v1/categorias?limit=1", "gzip");
+        assertThat(small.statusCode()).isEqualTo(200);
+        assertThat(small.headers().firstValue("Content-Encoding")).isEmpty();
+    }
+
+    private HttpResponse<byte[]> get(String path, String acceptEncoding) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Basic " + Base64.getEncoder().encodeToString("admin2:321".getBytes(StandardCharsets.UTF_8)));
+        if (acceptEncoding != null)
+            request.header("Accept-Encoding", acceptEncoding);
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
@@ -0,0 +1,51 @@
+package com.microservice.category.mscategory.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SecurityConfigurationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @SpyBean
+    private UserDetailsService userDetailsService;
+
+    @Test
+    void verifiedCredentialsAreCachedAndNoSessionIsCreated() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            MvcResult result = mockMvc.perform(get("/api/v1/categorias").with(httpBasic("admin2", "321")))
+                    .andExpect(status().is2xxSuccessful())
+                    .andExpect(header().doesNotExist("Set-Cookie"))
+                    .andReturn();
+            assertThat(result.getRequest().getSession(false)).isNull();
+        }
+        // Solo la primera solicitud busco al usuario y verifico la contraseña
+        verify(userDetailsService, times(1)).loadUserByUsername("admin2");
+
+        // Una contraseña incorrecta no coincide con la entrada cacheada y se rechaza
+        mockMvc.perform(get("/api/v1/categorias").with(httpBasic("admin2", "incorrecta")))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/v1/categorias").with(httpBasic("admin2", "incorrecta")))
+                .andExpect(status().isUnauthorized());
+        verify(userDetailsService, times(3)).loadUserByUsername("admin2");
+    }
+}
@@ -0,0 +1,802 @@
+package com.microservice.category.mscategory.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import com.microservice.category.mscategory.exception.RestExceptionHandler;
+import com.microservice.category.mscategory.model.Categoria;
+import com.microservice.category.mscategory.repository.CategoriaRepository;
+import com.microservice.category.mscategory.service.CategoriaSearchIndex;
+import com.microservice.category.mscategory.service.OutboxService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.startsWith;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica la cantidad de sentencias SQL que ejecuta cada endpoint, usando las estadisticas de Hibernate,
+ * y que el indice unico resuelva los nombres duplicados.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CategoriaControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CategoriaSearchIndex searchIndex;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    private Statistics statistics;
+
+    private Categoria categoria;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        deleteAllCategorias();
+        categoria = categoriaRepository.save(new Categoria("Hogar"));
+        searchIndex.rebuild();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        // Los demas tests de la misma aplicacion eliminan las categorias sin respetar el arbol
+        deleteAllCategorias();
+    }
+
+    @Test
+    void getByIdRunsOneStatementAndThenHitsTheCache() throws Exception {
+        mockMvc.perform(get("/api/v1/categoria/{id}", categoria.getId()).with(httpBasic("admin2", "321")))
+                .andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        mockMvc.perform(get("/api/v1/categoria/{id}", categoria.getId()).with(httpBasic("admin2", "321")))
+                .andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void getByIdNotFoundRunsOneStatement() throws Exception {
+        mockMvc.perform(get("/api/v1/categoria/{id}", categoria.getId() + 1000).with(httpBasic("admin2", "321")))
+                .andExpect(status().isNotFound());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void saveRunsOnlyTheInsert() throws Exception {
+        mockMvc.perform(post("/api/v1/categorias").with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\":\"Jardin\"}"))
+                .andExpect(status().isOk());
+        // INSERT, SELECT ... FOR UPDATE y UPDATE de la version de la tabla e INSERT en el outbox; ademas
+        // puede pedirse un nuevo bloque de ids a cada secuencia, una vez cada 50 altas
+        assertThat(statistics.getEntityStatistics(Categoria.class.getName()).getInsertCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isBetween(4L, 6L);
+    }
+
+    @Test
+    void saveDuplicateIsRecordedInTheMetrics() throws Exception {
+        double conflicts = meterRegistry.counter("service.conflicts", "operation", "save").count();
+
+        mockMvc.perform(post("/api/v1/categorias").with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\":\"Hogar\"}"))
+                .andExpect(status().isConflict());
+
+        assertThat(meterRegistry.counter("service.conflicts", "operation", "save").count()).isEqualTo(conflicts + 1);
+        assertThat(meterRegistry.find("http.server.requests").tags("uri", "/api/v1/categorias", "status", "409").timer()).isNotNull();
+        assertThat(meterRegistry.find("service.invocations").tags("method", "save").timer()).isNotNull();
+        assertThat(meterRegistry.find("spring.data.repository.invocations").tags("method", "saveAndFlush").timer()).isNotNull();
+        assertThat(meterRegistry.find("jdbc.query").timer()).isNotNull();
+    }
+
+    @Test
+    void connectionPoolMetricsArePublished() throws Exception {
+        mockMvc.perform(get("/api/v1/categoria/{id}", categoria.getId()).with(httpBasic("admin2", "321")))
+                .andExpect(status().isOk());
+
+        assertThat(meterRegistry.find("hikaricp.connections.acquire").tags("pool", "categoria").timer().count()).isPositive();
+        assertThat(meterRegistry.find("hikaricp.connections.active").tags("pool", "categoria").gauge()).isNotNull();
+        assertThat(meterRegistry.find("hikaricp.connections.idle").tags("pool", "categoria").gauge()).isNotNull();
+        assertThat(meterRegistry.find("hikaricp.connections.pending").tags("pool", "categoria").gauge()).isNotNull();
+    }
+
+    @Test
+    void saveDuplicateReturnsConflict() throws Exception {
+        mockMvc.perform(post("/api/v1/categorias").with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\":\"Hogar\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status_code").value(409));
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void errorsAreRenderedAsErrorDetail() throws Exception {
+        mockMvc.perform(get("/api/v1/categoria/{id}", categoria.getId() + 1000).with(httpBasic("admin2", "321")))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status_code").value(404))
+                .andExpect(jsonPath("$.error").value("Not Found"))
+                .andExpect(jsonPath("$.message").value("No se encontro la categoria con el id: " + (categoria.getId() + 1000)))
+                .andExpect(jsonPath("$.timestamp").isNotEmpty());
+        mockMvc.perform(get("/api/v1/categoria/{id}", 0).with(httpBasic("admin2", "321")))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Bad Request"))
+                .andExpect(jsonPath("$.message").value("El id ingresado no es valido"));
+        mockMvc.perform(post("/api/v1/categorias").with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\":\"Hogar\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Conflict"))
+                .andExpect(jsonPath("$.message").value("La categoria ya existe"));
+
+        // Las excepciones propias de Spring MVC tambien se responden con un ErrorDetail
+        mockMvc.perform(get("/api/v1/categoria/{id}", "abc").with(httpBasic("admin2", "321")))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status_code").value(400));
+        mockMvc.perform(post("/api/v1/categorias").with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\":"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status_code").value(400));
+    }
+
+    @Test
+    void concurrentSavesOfTheSameNameCreateOneRow() throws Exception {
+        int requests = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return mockMvc.perform(post("/api/v1/categorias").with(httpBasic("admin2", "321"))
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content("{\"categoria\":\"Deportes\"}"))
+                            .andReturn().getResponse().getStatus();
+                }));
+            }
+            start.countDown();
+
+            List<Integer> statuses = new ArrayList<>();
+            for (Future<Integer> result : results)
+                statuses.add(result.get(30, TimeUnit.SECONDS));
+
+            assertThat(statuses).containsOnly(200, 409);
+            assertThat(statuses).filteredOn(code -> code == 200).hasSize(1);
+            assertThat(categoriaRepository.count()).isEqualTo(2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void updateRunsSelectAndUpdate() throws Exception {
+        mockMvc.perform(put("/api/v1/categoria/{id}", categoria.getId()).with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\":\"Cocina\"}"))
+                .andExpect(status().isOk());
+        // SELECT y UPDATE de la categoria, SELECT ... FOR UPDATE y UPDATE de la version de la tabla
+        // e INSERT en el outbox (mas, cada 50 cambios, un bloque de ids de su secuencia)
+        assertThat(statistics.getPrepareStatementCount()).isBetween(5L, 6L);
+    }
+
+    @Test
+    void updateToAnExistingNameReturnsConflict() throws Exception {
+        Categoria otra = categoriaRepository.save(new Categoria("Cocina"));
+        mockMvc.perform(put("/api/v1/categoria/{id}", otra.getId()).with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\":\"Hogar\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status_code").value(409));
+        assertThat(categoriaRepository.findById(otra.getId())).get()
+                .extracting(Categoria::getCategoria).isEqualTo("Cocina");
+    }
+
+    @Test
+    void updateNotFoundRunsOneStatement() throws Exception {
+        mockMvc.perform(put("/api/v1/categoria/{id}", categoria.getId() + 1000).with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\":\"Cocina\"}"))
+                .andExpect(status().isNotFound());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void saveAllBatchesTheInsertsAndReportsEachItem() throws Exception {
+        StringBuilder body = new StringBuilder("[{\"categoria\":\"Hogar\"},{\"categoria\":\"\"},{\"categoria\":\"Libros\"}");
+        for (int i = 0; i < 20; i++)
+            body.append(",{\"categoria\":\"Lote ").append(i).append("\"}");
+        body.append(",{\"categoria\":\"Libros\"}]");
+
+        mockMvc.perform(post("/api/v1/categorias/bulk").with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(24))
+                .andExpect(jsonPath("$[0].status_code").value(409))
+                .andExpect(jsonPath("$[1].status_code").value(400))
+                .andExpect(jsonPath("$[2].status_code").value(200))
+                .andExpect(jsonPath("$[2].entity.categoria").value("Libros"))
+                .andExpect(jsonPath("$[23].status_code").value(409));
+
+        assertThat(statistics.getEntityStatistics(Categoria.class.getName()).getInsertCount()).isEqualTo(21);
+        // Un SELECT ... IN para los duplicados, un INSERT en lote, SELECT ... FOR UPDATE y UPDATE de la version
+        // de la tabla, un INSERT en lote en el outbox y, como mucho, un bloque de ids de cada secuencia
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(7);
+        assertThat(categoriaRepository.count()).isEqualTo(22);
+    }
+
+    @Test
+    void updateAllBatchesTheUpdatesAndReportsEachItem() throws Exception {
+        Categoria cocina = categoriaRepository.save(new Categoria("Cocina"));
+        Categoria jardin = categoriaRepository.save(new Categoria("Jardin"));
+        statistics.clear();
+
+        mockMvc.perform(put("/api/v1/categorias/bulk").with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"id\":" + categoria.getId() + ",\"categoria\":\"Casa\"},"
+                                + "{\"id\":" + cocina.getId() + ",\"categoria\":\"Jardin\"},"
+                                + "{\"id\":" + (categoria.getId() + 1000) + ",\"categoria\":\"Libros\"},"
+                                + "{\"categoria\":\"Sin id\"},"
+                                + "{\"id\":" + jardin.getId() + ",\"categoria\":\"Patio\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5))
+                .andExpect(jsonPath("$[0].status_code").value(200))
+                .andExpect(jsonPath("$[0].entity.categoria").value("Casa"))
+                .andExpect(jsonPath("$[1].status_code").value(409))
+                .andExpect(jsonPath("$[2].status_code").value(404))
+                .andExpect(jsonPath("$[3].status_code").value(400))
+                .andExpect(jsonPath("$[4].status_code").value(200))
+                .andExpect(jsonPath("$[4].entity.categoria").value("Patio"));
+
+        assertThat(statistics.getEntityStatistics(Categoria.class.getName()).getUpdateCount()).isEqualTo(2);
+        assertThat(categoriaRepository.findById(cocina.getId())).get().extracting(Categoria::getCategoria).isEqualTo("Cocina");
+        assertThat(categoriaRepository.findById(jardin.getId())).get().extracting(Categoria::getCategoria).isEqualTo("Patio");
+    }
+
+    @Test
+    void onlyTheUniqueNameIndexIsReportedAsAConflict() throws Exception {
+        // Una fila con el proximo id de la secuencia, como las que quedan de antes de usarla
+        Long nextId = categoriaRepository.save(new Categoria("Cocina")).getId() + 1;
+        jdbcTemplate.update("INSERT INTO categoria (id, categoria, version) VALUES (?, 'Anterior', 0)", nextId);
+
+        mockMvc.perform(post("/api/v1/categorias").with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\":\"Jardin\"}"))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.message").value(RestExceptionHandler.INTERNAL_ERROR_MESSAGE));
+        assertThat(categoriaRepository.findByCategoria("Jardin")).isNull();
+    }
+
+    @Test
+    void deleteAllReportsMissingIds() throws Exception {
+        mockMvc.perform(delete("/api/v1/categorias/bulk").with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + categoria.getId() + "," + (categoria.getId() + 1000) + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status_code").value(204))
+                .andExpect(jsonPath("$[1].status_code").value(404));
+        assertThat(categoriaRepository.count()).isZero();
+    }
+
+    @Test
+    void deleteRunsDeleteAndVersionUpdate() throws Exception {
+        mockMvc.perform(delete("/api/v1/categoria/{id}", categoria.getId()).with(httpBasic("admin2", "321")))
+                .andExpect(status().isNoContent());
+        // DELETE de la categoria, SELECT ... FOR UPDATE y UPDATE de la version de la tabla
+        // e INSERT en el outbox (mas, cada 50 cambios, un bloque de ids de su secuencia)
+        long statements = statistics.getPrepareStatementCount();
+        assertThat(statements).isBetween(4L, 5L);
+
+        mockMvc.perform(delete("/api/v1/categoria/{id}", categoria.getId()).with(httpBasic("admin2", "321")))
+                .andExpect(status().isNotFound());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements + 1);
+    }
+
+    @Test
+    void getByIdWithMatchingETagReturnsNotModified() throws Exception {
+        String eTag = mockMvc.perform(get("/api/v1/categoria/{id}", categoria.getId()).with(httpBasic("admin2", "321")))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Last-Modified"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/v1/categoria/{id}", categoria.getId()).with(httpBasic("admin2", "321"))
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(put("/api/v1/categoria/{id}", categoria.getId()).with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\":\"Cocina\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/categoria/{id}", categoria.getId()).with(httpBasic("admin2", "321"))
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.categoria").value("Cocina"));
+    }
+
+    @Test
+    void getAllWithMatchingETagOnlyReadsTheTableVersion() throws Exception {
+        String eTag = mockMvc.perform(get("/api/v1/categorias").param("limit", "10").with(httpBasic("admin2", "321")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        statistics.clear();
+
+        mockMvc.perform(get("/api/v1/categorias").param("limit", "10").with(httpBasic("admin2", "321"))
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        mockMvc.perform(post("/api/v1/categorias").with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\":\"Jardin\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/categorias").param("limit", "10").with(httpBasic("admin2", "321"))
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2));
+    }
+
+    @Test
+    void getAllValidatesItsParametersBeforeTheETag() throws Exception {
+        String eTag = mockMvc.perform(get("/api/v1/categorias").param("limit", "10").with(httpBasic("admin2", "321")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/v1/categorias").param("limit", "0").with(httpBasic("admin2", "321"))
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/categorias").param("after", "-1").with(httpBasic("admin2", "321"))
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getAllWithFieldsSelectsOnlyThoseColumns() throws Exception {
+        categoriaRepository.save(new Categoria("Jardin"));
+        statistics.clear();
+
+        mockMvc.perform(get("/api/v1/categorias").param("limit", "1").param("fields", "id").with(httpBasic("admin2", "321")))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"items\":[{\"id\":" + categoria.getId() + "}],\"next_cursor\":" + categoria.getId() + "}", true));
+        mockMvc.perform(get("/api/v1/categorias").param("fields", "categoria").with(httpBasic("admin2", "321")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[1].categoria").value("Jardin"))
+                .andExpect(jsonPath("$.items[1].version").doesNotExist());
+        // Las filas se leen como tuplas, sin crear entidades en el contexto de persistencia
+        assertThat(statistics.getEntityStatistics(Categoria.class.getName()).getLoadCount()).isZero();
+
+        mockMvc.perform(get("/api/v1/categorias").param("fields", "version").with(httpBasic("admin2", "321")))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("El campo 'version' no existe"));
+    }
+
+    @Test
+    void getAllWithoutParametersReturnsTheFirstPageAndItsCursorsReachTheEnd() throws Exception {
+        List<Categoria> categorias = new ArrayList<>();
+        for (int i = 1; i < 250; i++)
+            categorias.add(new Categoria("Categoria " + i));
+        categoriaRepository.saveAll(categorias);
+
+        String body = mockMvc.perform(get("/api/v1/categorias").with(httpBasic("admin2", "321")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(100))
+                .andReturn().getResponse().getContentAsString();
+
+        List<Long> ids = new ArrayList<>();
+        while (true) {
+            JsonPath.<List<Number>>read(body, "$.items[*].id").forEach(id -> ids.add(id.longValue()));
+            Number cursor = JsonPath.read(body, "$.next_cursor");
+            if (cursor == null)
+                break;
+            assertThat(cursor.longValue()).isEqualTo(ids.get(ids.size() - 1));
+            body = mockMvc.perform(get("/api/v1/categorias").param("after", cursor.toString()).with(httpBasic("admin2", "321")))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+        }
+        assertThat(ids).hasSize(250).doesNotHaveDuplicates().isSorted();
+    }
+
+    @Test
+    void streamReturnsEveryCategoriaInOneArray() throws Exception {
+        Long cocina = saveCategoria("Cocina", categoria.getId());
+        saveCategoria("Vajilla", cocina);
+
+        MvcResult result = mockMvc.perform(get("/api/v1/categorias").param("stream", "true").with(httpBasic("admin2", "321")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[*].categoria").value(contains("Hogar", "Cocina", "Vajilla")))
+                .andExpect(jsonPath("$[2].parent_id").value(cocina.intValue()));
+    }
+
+    @Test
+    void searchByPrefixIgnoresCaseAndAccentsWithoutSql() throws Exception {
+        mockMvc.perform(post("/api/v1/categorias").with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\":\"Árboles\"}"))
+                .andExpect(status().isOk());
+        statistics.clear();
+
+        mockMvc.perform(get("/api/v1/categorias/search").param("prefix", "ARBO").with(httpBasic("admin2", "321")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].categoria").value("Árboles"));
+        mockMvc.perform(get("/api/v1/categorias/search").param("prefix", "hog").with(httpBasic("admin2", "321")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].categoria").value("Hogar"));
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        mockMvc.perform(delete("/api/v1/categoria/{id}", categoria.getId()).with(httpBasic("admin2", "321")))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/v1/categorias/search").param("prefix", "hog").with(httpBasic("admin2", "321")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+
+        mockMvc.perform(get("/api/v1/categorias/search").param("prefix", " ").with(httpBasic("admin2", "321")))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status_code").value(400));
+    }
+
+    @Test
+    void changesFeedReturnsMutationsInCommitOrder() throws Exception {
+        long since = currentChangesCursor();
+
+        mockMvc.perform(post("/api/v1/categorias").with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\":\"Jardin\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/api/v1/categoria/{id}", categoria.getId()).with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\":\"Cocina\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/v1/categoria/{id}", categoria.getId()).with(httpBasic("admin2", "321")))
+                .andExpect(status().isNoContent());
+
+        MvcResult result = mockMvc.perform(get("/api/v1/categorias/changes").param("since", String.valueOf(since))
+                        .with(httpBasic("admin2", "321")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(3))
+                .andExpect(jsonPath("$.items[0].operation").value("SAVE"))
+                .andExpect(jsonPath("$.items[0].entity.categoria").value("Jardin"))
+                .andExpect(jsonPath("$.items[1].entity_id").value(categoria.getId()))
+                .andExpect(jsonPath("$.items[1].entity.categoria").value("Cocina"))
+                .andExpect(jsonPath("$.items[2].operation").value("DELETE"))
+                .andExpect(jsonPath("$.items[2].entity").doesNotExist());
+    }
+
+    @Test
+    void changesFeedLongPollReturnsOnTheNextCommit() throws Exception {
+        long since = currentChangesCursor();
+
+        MvcResult result = mockMvc.perform(get("/api/v1/categorias/changes").param("since", String.valueOf(since))
+                        .param("wait", "10")
+                        .with(httpBasic("admin2", "321")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThatThrownBy(() -> result.getAsyncResult(200)).isInstanceOf(IllegalStateException.class);
+
+        mockMvc.perform(post("/api/v1/categorias").with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\":\"Jardin\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].entity.categoria").value("Jardin"));
+    }
+
+    @Test
+    void purgeRemovesTheChangesOlderThanTheRetention() throws Exception {
+        long since = currentChangesCursor();
+        mockMvc.perform(post("/api/v1/categorias").with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\":\"Jardin\"}"))
+                .andExpect(status().isOk());
+        // Todo lo escrito hasta aca queda fuera de la retencion (7 dias por defecto)
+        jdbcTemplate.update("UPDATE outbox_event SET created_at = DATEADD('DAY', -8, created_at)");
+        mockMvc.perform(post("/api/v1/categorias").with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\":\"Deportes\"}"))
+                .andExpect(status().isOk());
+
+        assertThat(outboxService.purge()).isGreaterThanOrEqualTo(1);
+
+        assertThat(outboxService.findAfter(0L, 1000)).singleElement()
+                .satisfies(change -> assertThat(change.getSeq()).isGreaterThan(since + 1));
+        assertThat(outboxService.purge()).isZero();
+    }
+
+    @Test
+    void snapshotImportSkipsExistingNamesAndExportRoundTrips() throws Exception {
+        mockMvc.perform(post("/api/v1/categorias/snapshot").with(httpBasic("admin2", "321"))
+                        .contentType("application/x-ndjson")
+                        .content("{\"id\":900,\"categoria\":\"Jardin\"}\n{\"categoria\":\"Hogar\"}\n{\"categoria\":\"Deportes\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.skipped").value(1));
+
+        MvcResult result = mockMvc.perform(get("/api/v1/categorias/snapshot").with(httpBasic("admin2", "321")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MockHttpServletResponse response = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("X-Changes-Cursor"))
+                .andReturn().getResponse();
+        byte[] snapshot = response.getContentAsByteArray();
+        try (InputStream lines = new GZIPInputStream(new ByteArrayInputStream(snapshot))) {
+            assertThat(new String(lines.readAllBytes(), StandardCharsets.UTF_8).lines())
+                    .containsExactly(
+                            "{\"id\":" + categoria.getId() + ",\"categoria\":\"Hogar\"}",
+                            "{\"id\":" + categoriaRepository.findByCategoria("Jardin").getId() + ",\"categoria\":\"Jardin\"}",
+                            "{\"id\":" + categoriaRepository.findByCategoria("Deportes").getId() + ",\"categoria\":\"Deportes\"}");
+        }
+
+        deleteAllCategorias();
+        mockMvc.perform(post("/api/v1/categorias/snapshot").with(httpBasic("admin2", "321"))
+                        .contentType("application/gzip")
+                        .content(snapshot))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(3))
+                .andExpect(jsonPath("$.skipped").value(0));
+    }
+
+    @Test
+    void snapshotImportRejectsAnInvalidLine() throws Exception {
+        mockMvc.perform(post("/api/v1/categorias/snapshot").with(httpBasic("admin2", "321"))
+                        .contentType("application/x-ndjson")
+                        .content("{\"categoria\":\"Jardin\"}\n{\"categoria\":\"\"}\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Linea 2: la categoria no puede estar vacia"));
+    }
+
+    @Test
+    void snapshotImportValidatesEachLineAndItsOrder() throws Exception {
+        mockMvc.perform(post("/api/v1/categorias/snapshot").with(httpBasic("admin2", "321"))
+                        .contentType("application/x-ndjson")
+                        .content("{\"categoria\":\"Jardin\"}\n{\"categoria\":\"" + "x".repeat(Categoria.MAX_NAME_LENGTH + 1) + "\"}\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(startsWith("Linea 2: categoria: ")));
+
+        // Una raiz despues de una subcategoria: el import ya olvido a los padres anteriores
+        mockMvc.perform(post("/api/v1/categorias/snapshot").with(httpBasic("admin2", "321"))
+                        .contentType("application/x-ndjson")
+                        .content("{\"id\":1,\"categoria\":\"Sala\"}\n{\"id\":2,\"categoria\":\"Sillones\",\"parent_id\":1}\n"
+                                + "{\"id\":3,\"categoria\":\"Patio\"}\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Linea 3: las categorias no estan en el orden de /categorias/snapshot"));
+    }
+
+    @Test
+    void descendantsAndAncestorsRunOneStatementEach() throws Exception {
+        Long cocina = saveCategoria("Cocina", categoria.getId());
+        Long vajilla = saveCategoria("Vajilla", cocina);
+        Long banio = saveCategoria("Banio", categoria.getId());
+        cacheManager.getCache("categoriasPorId").clear();
+        statistics.clear();
+
+        mockMvc.perform(get("/api/v1/categoria/{id}/descendants", categoria.getId()).with(httpBasic("admin2", "321")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[*].categoria").value(contains("Cocina", "Banio", "Vajilla")));
+        // SELECT de la categoria (que queda en la cache) y SELECT de sus descendientes
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+
+        mockMvc.perform(get("/api/v1/categoria/{id}/descendants", categoria.getId()).param("depth", "1").with(httpBasic("admin2", "321")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(containsInAnyOrder(cocina.intValue(), banio.intValue())));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+
+        statistics.clear();
+        mockMvc.perform(get("/api/v1/categoria/{id}/ancestors", vajilla).with(httpBasic("admin2", "321")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].categoria").value(contains("Hogar", "Cocina")));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+
+        mockMvc.perform(get("/api/v1/categoria/{id}/ancestors", categoria.getId()).with(httpBasic("admin2", "321")))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]"));
+        mockMvc.perform(get("/api/v1/categoria/{id}/descendants", categoria.getId() + 1000).with(httpBasic("admin2", "321")))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void movingACategoryMovesItsSubtree() throws Exception {
+        Long cocina = saveCategoria("Cocina", categoria.getId());
+        Long vajilla = saveCategoria("Vajilla", cocina);
+        Long jardin = saveCategoria("Jardin", null);
+
+        mockMvc.perform(put("/api/v1/categoria/{id}", cocina).with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\":\"Cocina\",\"parent_id\":" + jardin + "}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.parent_id").value(jardin.intValue()));
+
+        mockMvc.perform(get("/api/v1/categoria/{id}/ancestors", vajilla).with(httpBasic("admin2", "321")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].categoria").value(contains("Jardin", "Cocina")));
+        mockMvc.perform(get("/api/v1/categoria/{id}/descendants", jardin).with(httpBasic("admin2", "321")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].categoria").value(contains("Cocina", "Vajilla")));
+        mockMvc.perform(get("/api/v1/categoria/{id}/descendants", categoria.getId()).with(httpBasic("admin2", "321")))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]"));
+        assertThat(categoriaRepository.findById(vajilla)).get()
+                .extracting(Categoria::getPath, Categoria::getDepth).containsExactly("/" + jardin + "/" + cocina + "/", 2);
+
+        // Una categoria no puede quedar debajo de si misma ni de una de sus subcategorias
+        mockMvc.perform(put("/api/v1/categoria/{id}", jardin).with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\":\"Jardin\",\"parent_id\":" + vajilla + "}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(put("/api/v1/categoria/{id}", jardin).with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\":\"Jardin\",\"parent_id\":" + jardin + "}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void descendantsOfACachedCategoryFollowItsMovedAncestor() throws Exception {
+        Long cocina = saveCategoria("Cocina", categoria.getId());
+        saveCategoria("Vajilla", cocina);
+        Long jardin = saveCategoria("Jardin", null);
+        mockMvc.perform(get("/api/v1/categoria/{id}/descendants", cocina).with(httpBasic("admin2", "321")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].categoria").value(contains("Vajilla")));
+
+        // Mover Hogar no actualiza la copia de Cocina en la cache, que conserva su path anterior
+        mockMvc.perform(put("/api/v1/categoria/{id}", categoria.getId()).with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\":\"Hogar\",\"parent_id\":" + jardin + "}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/categoria/{id}/descendants", cocina).with(httpBasic("admin2", "321")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].categoria").value(contains("Vajilla")));
+        mockMvc.perform(get("/api/v1/categoria/{id}/descendants", cocina).param("depth", "1").with(httpBasic("admin2", "321")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].categoria").value(contains("Vajilla")));
+    }
+
+    @Test
+    void invalidParentsAreRejected() throws Exception {
+        mockMvc.perform(post("/api/v1/categorias").with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\":\"Cocina\",\"parent_id\":" + (categoria.getId() + 1000) + "}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("No se encontro la categoria padre con el id: " + (categoria.getId() + 1000)));
+
+        saveCategoria("Cocina", categoria.getId());
+        mockMvc.perform(delete("/api/v1/categoria/{id}", categoria.getId()).with(httpBasic("admin2", "321")))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("La categoria tiene subcategorias"));
+    }
+
+    @Test
+    void snapshotImportRestoresTheTree() throws Exception {
+        Long cocina = saveCategoria("Cocina", categoria.getId());
+        saveCategoria("Vajilla", cocina);
+
+        MvcResult result = mockMvc.perform(get("/api/v1/categorias/snapshot").with(httpBasic("admin2", "321")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] snapshot = mockMvc.perform(asyncDispatch(result)).andReturn().getResponse().getContentAsByteArray();
+
+        deleteAllCategorias();
+        mockMvc.perform(post("/api/v1/categorias/snapshot").with(httpBasic("admin2", "321"))
+                        .contentType("application/gzip")
+                        .content(snapshot))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(3));
+
+        Categoria vajilla = categoriaRepository.findByCategoria("Vajilla");
+        assertThat(vajilla.getParentId()).isEqualTo(categoriaRepository.findByCategoria("Cocina").getId());
+        assertThat(vajilla.getAncestorIds()).containsExactly(categoriaRepository.findByCategoria("Hogar").getId(), vajilla.getParentId());
+
+        mockMvc.perform(post("/api/v1/categorias/snapshot").with(httpBasic("admin2", "321"))
+                        .contentType("application/x-ndjson")
+                        .content("{\"id\":1,\"categoria\":\"Sala\",\"parent_id\":2}\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Linea 1: la categoria padre 2 no aparece antes en el snapshot"));
+    }
+
+    private Long saveCategoria(String name, Long parentId) throws Exception {
+        mockMvc.perform(post("/api/v1/categorias").with(httpBasic("admin2", "321"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\":\"" + name + "\"" + (parentId == null ? "" : ",\"parent_id\":" + parentId) + "}"))
+                .andExpect(status().isOk());
+        return categoriaRepository.findByCategoria(name).getId();
+    }
+
+    /**
+     * Elimina las categorias de la hoja a la raiz, para no violar fk_categoria_parent.
+     */
+    private void deleteAllCategorias() {
+        Integer maxDepth = jdbcTemplate.queryForObject("select coalesce(max(depth), 0) from categoria", Integer.class);
+        for (int depth = maxDepth; depth >= 0; depth--)
+            jdbcTemplate.update("delete from categoria where depth = ?", depth);
+    }
+
+    private long currentChangesCursor() throws Exception {
+        long cursor = 0;
+        while (true) {
+            MvcResult result = mockMvc.perform(get("/api/v1/categorias/changes").param("since", String.valueOf(cursor))
+                            .param("limit", "1000")
+                            .with(httpBasic("admin2", "321")))
+                    .andReturn();
+            String body = mockMvc.perform(asyncDispatch(result)).andReturn().getResponse().getContentAsString();
+            long next = Long.parseLong(body.replaceAll(".*\"next_cursor\":(\\d+).*", "$1"));
+            if (next == cursor)
+                return cursor;
+            cursor = next;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.microservice.category.mscategory.controller;
+
+import com.microservice.category.mscategory.model.Categoria;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica que la variante reactiva (perfil reactive) mantenga las rutas, los codigos de estado
+ * y el contrato ErrorDetail de la variante servlet, sobre H2 via R2DBC.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"reactive", "test"})
+class ReactiveCategoriaControllerTests {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        databaseClient.sql("UPDATE categoria SET parent_id = NULL").fetch().rowsUpdated().block();
+        databaseClient.sql("DELETE FROM categoria").fetch().rowsUpdated().block();
+        client = webTestClient.mutate()
+                .defaultHeaders(headers -> headers.setBasicAuth("admin2", "321"))
+                .build();
+    }
+
+    @Test
+    void crudRoundTrip() {
+        Categoria saved = client.post().uri("/api/v1/categorias").bodyValue(new Categoria("Hogar"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Categoria.class).returnResult().getResponseBody();
+
+        client.get().uri("/api/v1/categoria/{id}", saved.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.categoria").isEqualTo("Hogar");
+
+        client.put().uri("/api/v1/categoria/{id}", saved.getId()).bodyValue(new Categoria("Jardin"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.categoria").isEqualTo("Jardin");
+
+        client.get().uri("/api/v1/categorias?limit=10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.items.length()").isEqualTo(1)
+                .jsonPath("$.next_cursor").doesNotExist();
+
+        client.delete().uri("/api/v1/categoria/{id}", saved.getId())
+                .exchange()
+                .expectStatus().isNoContent();
+
+        client.get().uri("/api/v1/categoria/{id}", saved.getId())
+                .exchange()
+                .expectStatus().isNotFound();
+
+        client.get().uri("/api/v1/categorias")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.items.length()").isEqualTo(0);
+    }
+
+    @Test
+    void duplicateNameReturnsConflict() {
+        client.post().uri("/api/v1/categorias").bodyValue(new Categoria("Hogar"))
+                .exchange()
+                .expectStatus().isOk();
+
+        client.post().uri("/api/v1/categorias").bodyValue(new Categoria("Hogar"))
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody()
+                .jsonPath("$.status_code").isEqualTo(409)
+                .jsonPath("$.message").isEqualTo("La categoria ya existe");
+    }
+
+    @Test
+    void eachWriteRecordsItsChangeWithTheNewTableVersion() {
+        long version = tableVersion();
+        Categoria saved = client.post().uri("/api/v1/categorias").bodyValue(new Categoria("Hogar"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Categoria.class).returnResult().getResponseBody();
+        client.put().uri("/api/v1/categoria/{id}", saved.getId()).bodyValue(new Categoria("Jardin"))
+                .exchange()
+                .expectStatus().isOk();
+        // Un duplicado no cambia la version ni escribe en el outbox
+        client.post().uri("/api/v1/categorias").bodyValue(new Categoria("Jardin"))
+                .exchange()
+                .expectStatus().isEqualTo(409);
+        client.delete().uri("/api/v1/categoria/{id}", saved.getId())
+                .exchange()
+                .expectStatus().isNoContent();
+
+        assertThat(tableVersion()).isEqualTo(version + 3);
+        List<String> changes = databaseClient.sql("SELECT seq, operation, entity_id FROM outbox_event WHERE seq > :version ORDER BY seq")
+                .bind("version", version)
+                .map(row -> row.get("seq", Long.class) + " " + row.get("operation", String.class) + " " + row.get("entity_id", Long.class))
+                .all().collectList().block();
+        assertThat(changes).containsExactly(
+                (version + 1) + " SAVE " + saved.getId(),
+                (version + 2) + " SAVE " + saved.getId(),
+                (version + 3) + " DELETE " + saved.getId());
+    }
+
+    @Test
+    void parentIsPersistedAndMovingACategoryMovesItsSubtree() {
+        Long hogar = save("Hogar", null);
+        Long cocina = save("Cocina", hogar);
+        Long vajilla = save("Vajilla", cocina);
+        Long jardin = save("Jardin", null);
+
+        client.get().uri("/api/v1/categoria/{id}", vajilla)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.parent_id").isEqualTo(cocina.intValue());
+        assertThat(placement(vajilla)).isEqualTo("/" + hogar + "/" + cocina + "/ 2");
+
+        client.put().uri("/api/v1/categoria/{id}", cocina).bodyValue(categoria("Cocina", jardin))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.parent_id").isEqualTo(jardin.intValue());
+        assertThat(placement(cocina)).isEqualTo("/" + jardin + "/ 1");
+        assertThat(placement(vajilla)).isEqualTo("/" + jardin + "/" + cocina + "/ 2");
+
+        // Una categoria no puede quedar debajo de si misma ni de una de sus subcategorias
+        client.put().uri("/api/v1/categoria/{id}", jardin).bodyValue(categoria("Jardin", vajilla))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").isEqualTo("La categoria padre no puede ser la misma categoria ni una de sus subcategorias");
+        client.post().uri("/api/v1/categorias").bodyValue(categoria("Macetas", 999L))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").isEqualTo("No se encontro la categoria padre con el id: 999");
+        client.delete().uri("/api/v1/categoria/{id}", jardin)
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody().jsonPath("$.message").isEqualTo("La categoria tiene subcategorias");
+
+        client.put().uri("/api/v1/categoria/{id}", cocina).bodyValue(categoria("Cocina", null))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.parent_id").doesNotExist();
+        assertThat(placement(vajilla)).isEqualTo("/" + cocina + "/ 1");
+    }
+
+    @Test
+    void errorsUseErrorDetail() {
+        client.post().uri("/api/v1/categorias").bodyValue(new Categoria(" "))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.error").isEqualTo("Bad Request");
+
+        client.put().uri("/api/v1/categoria/{id}", 999).bodyValue(new Categoria("Hogar"))
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.status_code").isEqualTo(404);
+
+        client.delete().uri("/api/v1/categoria/{id}", 999)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.error").isEqualTo("Not Found");
+
+        client.get().uri("/api/v1/categoria/{id}", 999)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.status_code").isEqualTo(404)
+                .jsonPath("$.message").isEqualTo("No se encontro la categoria con el id: 999");
+
+        client.get().uri("/api/v1/categoria/{id}", 0)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.status_code").isEqualTo(400)
+                .jsonPath("$.message").isEqualTo("El id ingresado no es valido");
+
+        client.get().uri("/api/v1/categorias?limit=0")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.error").isEqualTo("Bad Request");
+    }
+
+    @Test
+    void requiresAuthentication() {
+        webTestClient.get().uri("/api/v1/categorias")
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    private Long save(String name, Long parentId) {
+        return client.post().uri("/api/v1/categorias").bodyValue(categoria(name, parentId))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Categoria.class).returnResult().getResponseBody().getId();
+    }
+
+    private static Categoria categoria(String name, Long parentId) {
+        Categoria categoria = new Categoria(name);
+        categoria.setParentId(parentId);
+        return categoria;
+    }
+
+    private String placement(Long id) {
+        return databaseClient.sql("SELECT path, depth FROM categoria WHERE id = :id")
+                .bind("id", id)
+                .map(row -> row.get("path", String.class) + " " + row.get("depth", Integer.class))
+                .one().block();
+    }
+
+    private long tableVersion() {
+        return databaseClient.sql("SELECT version FROM table_version WHERE table_name = 'categoria'")
+                .map(row -> row.get(0, Long.class))
+                .one().block();
+    }
+}
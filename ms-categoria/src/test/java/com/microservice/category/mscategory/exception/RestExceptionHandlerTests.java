@@ -0,0 +1,48 @@
+package com.microservice.category.mscategory.exception;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica que los errores 5xx no publiquen el mensaje de la excepcion, y que los 4xx si lo hagan.
+ */
+class RestExceptionHandlerTests {
+    private static final String DRIVER_MESSAGE = "could not execute statement [Duplicate entry '7' for key 'categoria.PRIMARY'] "
+            + "[insert into categoria (categoria,id) values (?,?)]";
+
+    private final RestExceptionHandler handler = new RestExceptionHandler();
+
+    private final ServletWebRequest request = new ServletWebRequest(new MockHttpServletRequest("POST", "/api/v1/categorias"));
+
+    @Test
+    void serviceExceptionsAreAnsweredWithAFixedMessage() {
+        ResponseEntity<ErrorDetail> response = handler.handleApiException(
+                new ServiceException(DRIVER_MESSAGE, new SQLException(DRIVER_MESSAGE)), request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(response.getBody().getMessage()).isEqualTo(RestExceptionHandler.INTERNAL_ERROR_MESSAGE);
+    }
+
+    @Test
+    void unexpectedExceptionsAreAnsweredWithAFixedMessage() {
+        ResponseEntity<ErrorDetail> response = handler.handleUnexpectedException(new IllegalStateException(DRIVER_MESSAGE), request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(response.getBody().getMessage()).isEqualTo(RestExceptionHandler.INTERNAL_ERROR_MESSAGE);
+    }
+
+    @Test
+    void clientErrorsKeepTheirMessage() {
+        ResponseEntity<ErrorDetail> response = handler.handleApiException(new ConflictException("La categoria ya existe"), request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getBody().getMessage()).isEqualTo("La categoria ya existe");
+    }
+}